@@ -0,0 +1,217 @@
+package edu.grinnell.csc207.benchmarks;
+
+import edu.grinnell.csc207.blockchains.Block;
+import edu.grinnell.csc207.blockchains.BlockChain;
+import edu.grinnell.csc207.blockchains.Transaction;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the chain operations at chain sizes from a thousand to a million blocks.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class ChainBenchmark {
+  // +--------+------------------------------------------------------
+  // | States |
+  // +--------+
+
+  /**
+   * A chain of a given size.
+   */
+  @State(Scope.Benchmark)
+  public static class Sized {
+    /**
+     * The number of blocks in the chain.
+     */
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int chainSize;
+
+    /**
+     * The chain.
+     */
+    public BlockChain chain;
+
+    /**
+     * The block that goes after the last one.
+     */
+    public Block next;
+
+    /**
+     * Build the chain.
+     */
+    @Setup(Level.Trial)
+    public void build() {
+      chain = Chains.build(chainSize);
+      next = Chains.next(chain);
+      if (!chain.isCorrect()) {
+        throw new IllegalStateException("Benchmark chain is not correct");
+      } // if
+    } // build()
+  } // class Sized
+
+  /**
+   * A chain that is at its full size before each invocation.
+   */
+  @State(Scope.Benchmark)
+  public static class Full extends Sized {
+    /**
+     * The last block of the full chain.
+     */
+    public Block last;
+
+    /**
+     * Put back the last block if it was removed.
+     */
+    @Setup(Level.Invocation)
+    public void refill() {
+      if (chain.getSize() < chainSize) {
+        chain.append(last);
+      } else {
+        last = chain.getBack().getBlock();
+      } // if
+    } // refill()
+  } // class Full
+
+  /**
+   * A chain that is one block short of its full size before each invocation.
+   */
+  @State(Scope.Benchmark)
+  public static class Short extends Sized {
+    /**
+     * Remove the last block if it was appended.
+     */
+    @Setup(Level.Invocation)
+    public void trim() {
+      if (chain.getSize() >= chainSize) {
+        chain.removeLast();
+      } // if
+      next = Chains.next(chain);
+    } // trim()
+  } // class Short
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * Append one block.
+   *
+   * @param s The chain.
+   */
+  @Benchmark
+  public void append(Short s) {
+    s.chain.append(s.next);
+  } // append(Short)
+
+  /**
+   * Remove the last block.
+   *
+   * @param s The chain.
+   *
+   * @return whether it was removed.
+   */
+  @Benchmark
+  public boolean removeLast(Full s) {
+    return s.chain.removeLast();
+  } // removeLast(Full)
+
+  /**
+   * Verify the whole chain.
+   *
+   * @param s The chain.
+   *
+   * @return whether it is correct.
+   */
+  @Benchmark
+  public boolean isCorrect(Sized s) {
+    return s.chain.isCorrect();
+  } // isCorrect(Sized)
+
+  /**
+   * Verify the whole chain on every processor.
+   *
+   * @param s The chain.
+   *
+   * @return whether it is correct.
+   */
+  @Benchmark
+  public boolean isCorrectParallel(Sized s) {
+    return s.chain.isCorrectParallel();
+  } // isCorrectParallel(Sized)
+
+  /**
+   * Total what each user received.
+   *
+   * @param s The chain.
+   *
+   * @return the totals.
+   */
+  @Benchmark
+  public Map<String, Long> volume(Sized s) {
+    return s.chain.transactionStream().collect(Collectors.groupingBy(Transaction::getTarget,
+        Collectors.summingLong(Transaction::getAmount)));
+  } // volume(Sized)
+
+  /**
+   * Total what each user received, on every processor.
+   *
+   * @param s The chain.
+   *
+   * @return the totals.
+   */
+  @Benchmark
+  public Map<String, Long> volumeParallel(Sized s) {
+    return s.chain.transactionStream().parallel().collect(Collectors.groupingByConcurrent(
+        Transaction::getTarget, Collectors.summingLong(Transaction::getAmount)));
+  } // volumeParallel(Sized)
+
+  /**
+   * Find one user's balance.
+   *
+   * @param s The chain.
+   *
+   * @return the balance.
+   */
+  @Benchmark
+  public int balance(Sized s) {
+    return s.chain.balance(Chains.user(7));
+  } // balance(Sized)
+
+  /**
+   * List the users.
+   *
+   * @param s The chain.
+   * @param bh Consumes the users.
+   */
+  @Benchmark
+  public void users(Sized s, Blackhole bh) {
+    Iterator<String> users = s.chain.users();
+    while (users.hasNext()) {
+      bh.consume(users.next());
+    } // while
+  } // users(Sized, Blackhole)
+} // class ChainBenchmark
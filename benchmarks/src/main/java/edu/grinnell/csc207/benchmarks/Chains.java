@@ -0,0 +1,79 @@
+package edu.grinnell.csc207.benchmarks;
+
+import edu.grinnell.csc207.blockchains.Block;
+import edu.grinnell.csc207.blockchains.BlockChain;
+import edu.grinnell.csc207.blockchains.Transaction;
+
+/**
+ * Builds chains for the benchmarks. Every hash is valid, so building a chain costs only the
+ * hashing done by append, and the transactions keep every balance legal so that isCorrect has to
+ * read the whole chain.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class Chains {
+  /**
+   * The number of distinct users in a chain.
+   */
+  static final int USERS = 1000;
+
+  /**
+   * Utility class; no instances.
+   */
+  private Chains() {
+  } // Chains()
+
+  /**
+   * Get the name of a user.
+   *
+   * @param i Which user.
+   *
+   * @return the user's name.
+   */
+  static String user(int i) {
+    return "user" + (i % USERS);
+  } // user(int)
+
+  /**
+   * Get the transaction for the block at a given height. Odd heights deposit 10 for a user, and
+   * even heights send half of the previous deposit on to the next user.
+   *
+   * @param height The height of the block.
+   *
+   * @return the transaction.
+   */
+  static Transaction transaction(int height) {
+    if (height % 2 == 1) {
+      return new Transaction("", user(height), 10);
+    } else {
+      return new Transaction(user(height - 1), user(height), 5);
+    } // if
+  } // transaction(int)
+
+  /**
+   * Make the block that goes after the current end of a chain.
+   *
+   * @param chain The chain.
+   *
+   * @return the next block.
+   */
+  static Block next(BlockChain chain) {
+    return new Block(chain.getSize() + 1, transaction(chain.getSize()), chain.getHash(), 0);
+  } // next(BlockChain)
+
+  /**
+   * Build a chain with the given number of blocks, including the initial one.
+   *
+   * @param size The number of blocks.
+   *
+   * @return the chain.
+   */
+  static BlockChain build(int size) {
+    BlockChain chain = new BlockChain((h) -> true);
+    while (chain.getSize() < size) {
+      chain.append(next(chain));
+    } // while
+    return chain;
+  } // build(int)
+} // class Chains
@@ -0,0 +1,101 @@
+package edu.grinnell.csc207.benchmarks;
+
+import edu.grinnell.csc207.blockchains.Block;
+import edu.grinnell.csc207.blockchains.BlockChain;
+import edu.grinnell.csc207.blockchains.Hash;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of Hash.hashCode and Hash.equals over every block hash of a chain, which is what
+ * a map keyed by block hash pays.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class HashBenchmark {
+  /**
+   * The number of blocks in the chain.
+   */
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int chainSize;
+
+  /**
+   * The hashes of the blocks.
+   */
+  Hash[] hashes;
+
+  /**
+   * Equal copies of those hashes.
+   */
+  Hash[] copies;
+
+  /**
+   * Collect the hashes of a chain.
+   */
+  @Setup(Level.Trial)
+  public void build() {
+    BlockChain chain = Chains.build(chainSize);
+    ArrayList<Hash> list = new ArrayList<Hash>(chainSize);
+    Iterator<Block> blocks = chain.blocks();
+    while (blocks.hasNext()) {
+      list.add(blocks.next().getHash());
+    } // while
+    hashes = list.toArray(new Hash[] {});
+    copies = new Hash[hashes.length];
+    for (int i = 0; i < hashes.length; i++) {
+      copies[i] = new Hash(hashes[i].getBytes());
+    } // for
+  } // build()
+
+  /**
+   * Compute every hash code.
+   *
+   * @return a combination of the codes.
+   */
+  @Benchmark
+  public int hashCodes() {
+    int result = 0;
+    for (Hash h : hashes) {
+      result += h.hashCode();
+    } // for
+    return result;
+  } // hashCodes()
+
+  /**
+   * Compare every hash with an equal copy.
+   *
+   * @return the number of equal pairs.
+   */
+  @Benchmark
+  public int equalHashes() {
+    int result = 0;
+    for (int i = 0; i < hashes.length; i++) {
+      if (hashes[i].equals(copies[i])) {
+        result++;
+      } // if
+    } // for
+    return result;
+  } // equalHashes()
+} // class HashBenchmark
@@ -0,0 +1,87 @@
+package edu.grinnell.csc207.benchmarks;
+
+import edu.grinnell.csc207.blockchains.Block;
+import edu.grinnell.csc207.blockchains.DifficultyValidator;
+import edu.grinnell.csc207.blockchains.Hash;
+import edu.grinnell.csc207.blockchains.Miner;
+import edu.grinnell.csc207.blockchains.Transaction;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of mining one block at one to three bytes of difficulty. Each invocation mines a
+ * different block, since the work needed varies a lot from block to block.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class MiningBenchmark {
+  /**
+   * The number of leading zero bytes required.
+   */
+  @Param({"1", "2", "3"})
+  public int difficulty;
+
+  /**
+   * The validator.
+   */
+  DifficultyValidator validator;
+
+  /**
+   * The previous hash used for every block.
+   */
+  Hash prevHash;
+
+  /**
+   * Counts the blocks mined, so each one differs.
+   */
+  int count = 0;
+
+  /**
+   * Set up the validator.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    validator = DifficultyValidator.leadingZeroBytes(difficulty);
+    prevHash = new Block(1, new Transaction("", "A", 1), new Hash(new byte[] {}), 0).getHash();
+  } // setup()
+
+  /**
+   * Mine a block with the default (parallel) miner.
+   *
+   * @return the block.
+   */
+  @Benchmark
+  public Block mine() {
+    return Miner.getDefault().mine(2, Chains.transaction(++count), prevHash, validator);
+  } // mine()
+
+  /**
+   * Mine a block with the serial search in the Block constructor.
+   *
+   * @return the block.
+   */
+  @Benchmark
+  public Block mineSerial() {
+    return new Block(2, Chains.transaction(++count), prevHash, validator);
+  } // mineSerial()
+} // class MiningBenchmark
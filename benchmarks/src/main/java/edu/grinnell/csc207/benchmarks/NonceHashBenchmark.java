@@ -0,0 +1,164 @@
+package edu.grinnell.csc207.benchmarks;
+
+import edu.grinnell.csc207.blockchains.BatchNonceHasher;
+import edu.grinnell.csc207.blockchains.Block;
+import edu.grinnell.csc207.blockchains.BlockHasher;
+import edu.grinnell.csc207.blockchains.Hash;
+import edu.grinnell.csc207.blockchains.HeaderHasher;
+import edu.grinnell.csc207.blockchains.MidstateDigest;
+import edu.grinnell.csc207.blockchains.NonceHasher;
+import edu.grinnell.csc207.blockchains.Transaction;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the cost of hashing one block for one nonce, by each of the ways we hash
+ * blocks. The vector benchmark reports the cost per nonce, not per batch.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class NonceHashBenchmark {
+  /**
+   * The number of nonces in a vector batch measured at once. Sixteen covers AVX-512; with
+   * fewer lanes we hash several batches.
+   */
+  static final int BATCH = 16;
+
+  /**
+   * A block with long names and a full previous hash.
+   */
+  Block block;
+
+  /**
+   * The transaction in that block.
+   */
+  Transaction transaction;
+
+  /**
+   * The previous hash of that block.
+   */
+  Hash prevHash;
+
+  /**
+   * A midstate hasher for the block.
+   */
+  NonceHasher midstate;
+
+  /**
+   * A scalar specialized hasher for the block.
+   */
+  NonceHasher header;
+
+  /**
+   * The vector hasher for the block, if the JVM supports it.
+   */
+  BatchNonceHasher vector;
+
+  /**
+   * Where hashes go.
+   */
+  byte[] out = new byte[BATCH * BlockHasher.HASH_BYTES];
+
+  /**
+   * The next nonce.
+   */
+  long nonce = 0;
+
+  /**
+   * Set up the block and hashers.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    transaction = new Transaction("Someone with a fairly long user name",
+        "Someone else with an even longer user name", 1000);
+    prevHash = new Hash(new byte[BlockHasher.HASH_BYTES]);
+    block = new Block(7, transaction, prevHash, 0);
+    midstate = new MidstateDigest(7, transaction, prevHash);
+    header = new HeaderHasher(7, transaction, prevHash);
+    NonceHasher best = HeaderHasher.factory().create(7, transaction, prevHash);
+    if (best instanceof BatchNonceHasher) {
+      vector = (BatchNonceHasher) best;
+    } // if
+  } // setup()
+
+  /**
+   * Block.computeHash, which builds a Hash.
+   *
+   * @return the hash.
+   */
+  @Benchmark
+  public Hash computeHash() {
+    return block.computeHash();
+  } // computeHash()
+
+  /**
+   * The allocation-free per-thread hasher.
+   *
+   * @return the buffer holding the hash.
+   */
+  @Benchmark
+  public byte[] blockHasher() {
+    BlockHasher.get().hashInto(7, transaction, prevHash, nonce++, out, 0);
+    return out;
+  } // blockHasher()
+
+  /**
+   * A cloned MessageDigest midstate.
+   *
+   * @return the buffer holding the hash.
+   */
+  @Benchmark
+  public byte[] midstateDigest() {
+    midstate.hashInto(nonce++, out, 0);
+    return out;
+  } // midstateDigest()
+
+  /**
+   * The scalar specialized SHA-256.
+   *
+   * @return the buffer holding the hash.
+   */
+  @Benchmark
+  public byte[] headerHasher() {
+    header.hashInto(nonce++, out, 0);
+    return out;
+  } // headerHasher()
+
+  /**
+   * The vector specialized SHA-256, sixteen nonces at a time.
+   *
+   * @return the buffer holding the hashes.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public byte[] vectorHasher() {
+    if (vector == null) {
+      throw new IllegalStateException("Run with --add-modules jdk.incubator.vector");
+    } // if
+    for (int i = 0; i < BATCH; i += vector.lanes()) {
+      vector.hashBatch(nonce, 1, out);
+      nonce += vector.lanes();
+    } // for
+    return out;
+  } // vectorHasher()
+} // class NonceHashBenchmark
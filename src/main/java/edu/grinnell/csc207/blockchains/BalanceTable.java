@@ -0,0 +1,155 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Arrays;
+
+/**
+ * Balances by name, kept in arrays indexed by user id, with a journal of changes so that they
+ * can be rolled back. Names with no balance are absent, which is not the same as a balance of 0.
+ * Once a table has seen its names, reading and changing balances allocates nothing.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class BalanceTable {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The ids of the names. */
+  private UserIds ids = new UserIds();
+
+  /** The balances, by id. */
+  private long[] balances = new long[UserIds.INITIAL_CAPACITY];
+
+  /** Whether each id has a balance. */
+  private boolean[] present = new boolean[UserIds.INITIAL_CAPACITY];
+
+  /** The ids changed, in order. */
+  private int[] changedIds = new int[UserIds.INITIAL_CAPACITY];
+
+  /** The balances they had before. */
+  private long[] oldBalances = new long[UserIds.INITIAL_CAPACITY];
+
+  /** Whether they had balances before. */
+  private boolean[] wasPresent = new boolean[UserIds.INITIAL_CAPACITY];
+
+  /** The number of changes in the journal. */
+  private int changes = 0;
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Write down the current state of an id before changing it.
+   *
+   * @param id The id.
+   */
+  void record(int id) {
+    if (changes == changedIds.length) {
+      changedIds = Arrays.copyOf(changedIds, 2 * changes);
+      oldBalances = Arrays.copyOf(oldBalances, 2 * changes);
+      wasPresent = Arrays.copyOf(wasPresent, 2 * changes);
+    } // if
+    changedIds[changes] = id;
+    oldBalances[changes] = balances[id];
+    wasPresent[changes] = present[id];
+    changes++;
+  } // record(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the id of a name, giving it one if need be.
+   *
+   * @param name The name.
+   *
+   * @return its id.
+   */
+  public int id(String name) {
+    int id = ids.intern(name);
+    if (id == balances.length) {
+      balances = Arrays.copyOf(balances, 2 * id);
+      present = Arrays.copyOf(present, 2 * id);
+    } // if
+    return id;
+  } // id(String)
+
+  /**
+   * Find the id of a name without giving it one.
+   *
+   * @param name The name.
+   *
+   * @return its id, or -1 if it has none.
+   */
+  public int find(String name) {
+    return ids.find(name);
+  } // find(String)
+
+  /**
+   * Determine whether an id has a balance.
+   *
+   * @param id The id.
+   *
+   * @return true if it has a balance, false otherwise.
+   */
+  public boolean has(int id) {
+    return id >= 0 && present[id];
+  } // has(int)
+
+  /**
+   * Get the balance of an id.
+   *
+   * @param id The id.
+   *
+   * @return its balance, or 0 if it has none.
+   */
+  public long get(int id) {
+    return balances[id];
+  } // get(int)
+
+  /**
+   * Set the balance of an id.
+   *
+   * @param id The id.
+   * @param balance The new balance.
+   */
+  public void put(int id, long balance) {
+    record(id);
+    balances[id] = balance;
+    present[id] = true;
+  } // put(int, long)
+
+  /**
+   * Get the number of changes so far, to roll back to later.
+   *
+   * @return the number of changes.
+   */
+  public int mark() {
+    return changes;
+  } // mark()
+
+  /**
+   * Undo the changes made since a mark.
+   *
+   * @param mark The number of changes to keep.
+   */
+  public void rollbackTo(int mark) {
+    while (changes > mark) {
+      changes--;
+      balances[changedIds[changes]] = oldBalances[changes];
+      present[changedIds[changes]] = wasPresent[changes];
+    } // while
+  } // rollbackTo(int)
+
+  /**
+   * Forget every balance and the journal. The names keep their ids.
+   */
+  public void clear() {
+    Arrays.fill(balances, 0);
+    Arrays.fill(present, false);
+    changes = 0;
+  } // clear()
+} // class BalanceTable
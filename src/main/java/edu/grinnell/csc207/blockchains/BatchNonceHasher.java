@@ -0,0 +1,25 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * Nonce hashers that can hash several nonces at once, such as those using SIMD lanes.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public interface BatchNonceHasher extends NonceHasher {
+  /**
+   * Determine how many nonces each batch hashes.
+   *
+   * @return the number of nonces in a batch.
+   */
+  int lanes();
+
+  /**
+   * Hash the nonces first, first + stride, first + 2 * stride, and so on, one per lane.
+   *
+   * @param first The nonce for the first lane.
+   * @param stride The difference between the nonces of neighboring lanes.
+   * @param out Where to put the hashes, 32 bytes per lane, in lane order.
+   */
+  void hashBatch(long first, long stride, byte[] out);
+} // interface BatchNonceHasher
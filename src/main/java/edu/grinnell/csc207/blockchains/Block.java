@@ -1,11 +1,14 @@
 package edu.grinnell.csc207.blockchains;
 
-import java.nio.ByteBuffer;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * Blocks to be stored in blockchains.
+ * Blocks to be stored in blockchains. A block holds either one transaction or a payload of many.
+ * A block with a payload hashes a stand-in transaction that carries the Merkle root of the
+ * payload in place of the transaction itself, so one nonce covers every transaction in it.
  *
  * @author Lily Blanchard
  * @author AJ Trimble
@@ -19,9 +22,15 @@ public class Block {
   /** The block number. */
   private int num;
 
-  /** The transaction. */
+  /** The transaction, or, for a block with a payload, the stand-in for its transactions. */
   public Transaction transaction;
 
+  /** The transactions of a block with a payload; null for a block with one transaction. */
+  Transaction[] payload = null;
+
+  /** The Merkle tree of the payload, once built. */
+  private MerkleTree tree = null;
+
   /** The previous hash. */
   private Hash prevHash = null;
 
@@ -71,43 +80,173 @@ public class Block {
 
   } // Block(int, Transaction, Hash, long)
 
+  /**
+   * Create a block whose hash is already known, such as one read back from storage. The hash is
+   * trusted, not checked.
+   *
+   * @param num1 The number of the block.
+   * @param transaction1 The transaction for the block.
+   * @param prevHash1 The hash of the previous block.
+   * @param nonce1 The nonce of the block.
+   * @param hash1 The hash of the block.
+   */
+  Block(int num1, Transaction transaction1, Hash prevHash1, long nonce1, Hash hash1) {
+    num = num1;
+    transaction = transaction1;
+    prevHash = prevHash1;
+    nonce = nonce1;
+    thisHash = hash1;
+  } // Block(int, Transaction, Hash, long, Hash)
+
+  /**
+   * Create a new block that holds many transactions, computing the hash for the block.
+   *
+   * @param num1 The number of the block.
+   * @param transactions1 The transactions for the block, of which there must be at least one.
+   * @param prevHash1 The hash of the previous block.
+   * @param nonce1 The nonce of the block.
+   */
+  public Block(int num1, List<Transaction> transactions1, Hash prevHash1, long nonce1) {
+    this(num1, transactions1.toArray(new Transaction[0]), null, prevHash1, nonce1, null);
+    thisHash = computeHash();
+  } // Block(int, List<Transaction>, Hash, long)
+
+  /**
+   * Create a new block that holds many transactions, mining to choose a nonce that meets the
+   * requirements of the validator.
+   *
+   * @param num1 The number of the block.
+   * @param transactions1 The transactions for the block, of which there must be at least one.
+   * @param prevHash1 The hash of the previous block.
+   * @param check1 The validator used to check the block.
+   */
+  public Block(int num1, List<Transaction> transactions1, Hash prevHash1, HashValidator check1) {
+    this(num1, transactions1, prevHash1, (long) 0);
+    while (!check1.isValid(thisHash)) {
+      nonce++;
+      thisHash = computeHash(num, transaction, prevHash, nonce);
+    } // while
+  } // Block(int, List<Transaction>, Hash, HashValidator)
+
+  /**
+   * Create a block with a payload whose hash is already known, such as one read back from
+   * storage or just mined. The hash is trusted, not checked.
+   *
+   * @param num1 The number of the block.
+   * @param payload1 The transactions for the block.
+   * @param commitment1 The stand-in for the transactions, or null to compute it.
+   * @param prevHash1 The hash of the previous block.
+   * @param nonce1 The nonce of the block.
+   * @param hash1 The hash of the block.
+   */
+  Block(int num1, Transaction[] payload1, Transaction commitment1, Hash prevHash1, long nonce1,
+      Hash hash1) {
+    num = num1;
+    payload = payload1;
+    transaction = (commitment1 != null) ? commitment1 : commit(payload1);
+    prevHash = prevHash1;
+    nonce = nonce1;
+    thisHash = hash1;
+  } // Block(int, Transaction[], Transaction, Hash, long, Hash)
+
   // +---------+-----------------------------------------------------
   // | Helpers |
   // +---------+
 
   /**
-   * Compute the hash of the block given all the other info already stored in the block.
+   * Make the stand-in for some transactions.
+   *
+   * @param transactions the transactions
+   * @return the stand-in, which carries the root of their Merkle tree
+   */
+  static Transaction commit(Transaction[] transactions) {
+    MerkleTree tree = new MerkleTree(Arrays.asList(transactions));
+    return Transaction.commitment(tree.getRoot(), transactions.length);
+  } // commit(Transaction[])
+
+  /**
+   * Compute the hash of the block given all the other info already stored in the block. For a
+   * block with a payload, we rebuild the Merkle tree, so changes to the payload show.
    *
    * @return the hash
    */
   public Hash computeHash() {
-    MessageDigest md;
-    try {
-      md = MessageDigest.getInstance("sha-256");
-      byte[] numbytes = ByteBuffer.allocate(Integer.BYTES).putInt(num).array();
-      md.update(numbytes);
-      if (getTransaction().getSource() != null) {
-        md.update(getTransaction().getSource().getBytes());
-      } // if source exists
-      if (getTransaction().getTarget() != null) {
-        md.update(getTransaction().getTarget().getBytes());
-      } // if target exists
-      byte[] amtbytes =
-          ByteBuffer.allocate(Integer.BYTES).putInt(getTransaction().getAmount()).array();
-      md.update(amtbytes);
-      if (getPrevHash() != null) {
-        md.update(getPrevHash().getBytes());
-      } // if prevHash exists
-      byte[] noncebytes = ByteBuffer.allocate(Long.BYTES).putLong(getNonce()).array();
-      md.update(noncebytes);
-
-      return new Hash(md.digest());
-    } catch (NoSuchAlgorithmException e) {
-      e.printStackTrace();
-    } // try/catch
-    return null;
+    Transaction t = (payload == null) ? getTransaction() : commit(payload);
+    return computeHash(num, t, getPrevHash(), getNonce());
   } // computeHash()
 
+  /**
+   * Compute the hash that a block with the given contents would have. This lets miners try
+   * nonces without building a block for each attempt.
+   *
+   * @param num1 The number of the block.
+   * @param transaction1 The transaction for the block.
+   * @param prevHash1 The hash of the previous block.
+   * @param nonce1 The nonce to try.
+   *
+   * @return the hash
+   */
+  static Hash computeHash(int num1, Transaction transaction1, Hash prevHash1, long nonce1) {
+    byte[] result = new byte[BlockHasher.HASH_BYTES];
+    BlockHasher.get().hashInto(num1, transaction1, prevHash1, nonce1, result, 0);
+    return Hash.wrap(result);
+  } // computeHash(int, Transaction, Hash, long)
+
+  /**
+   * Feed everything in a block that comes before the nonce to a digest. The nonce is always the
+   * last thing hashed, so miners can digest this prefix once and reuse it for every nonce.
+   *
+   * @param md The digest to update.
+   * @param scratch At least eight bytes used to encode numbers.
+   * @param num1 The number of the block.
+   * @param transaction1 The transaction for the block.
+   * @param prevHash1 The hash of the previous block.
+   */
+  static void updatePrefix(MessageDigest md, byte[] scratch, int num1, Transaction transaction1,
+      Hash prevHash1) {
+    putInt(scratch, 0, num1);
+    md.update(scratch, 0, Integer.BYTES);
+    if (transaction1.getSource() != null) {
+      md.update(transaction1.sourceBytes());
+    } // if source exists
+    if (transaction1.getTarget() != null) {
+      md.update(transaction1.targetBytes());
+    } // if target exists
+    putInt(scratch, 0, transaction1.getAmount());
+    md.update(scratch, 0, Integer.BYTES);
+    if (prevHash1 != null) {
+      md.update(prevHash1.contents);
+    } // if prevHash exists
+  } // updatePrefix(MessageDigest, byte[], int, Transaction, Hash)
+
+  /**
+   * Store an int in big-endian order, as ByteBuffer does.
+   *
+   * @param bytes Where to store it.
+   * @param offset The index of the first byte.
+   * @param val The int to store.
+   */
+  static void putInt(byte[] bytes, int offset, int val) {
+    for (int i = Integer.BYTES - 1; i >= 0; i--) {
+      bytes[offset + i] = (byte) val;
+      val >>>= Byte.SIZE;
+    } // for
+  } // putInt(byte[], int, int)
+
+  /**
+   * Store a long in big-endian order, as ByteBuffer does.
+   *
+   * @param bytes Where to store it.
+   * @param offset The index of the first byte.
+   * @param val The long to store.
+   */
+  static void putLong(byte[] bytes, int offset, long val) {
+    for (int i = Long.BYTES - 1; i >= 0; i--) {
+      bytes[offset + i] = (byte) val;
+      val >>>= Byte.SIZE;
+    } // for
+  } // putLong(byte[], int, long)
+
   // +---------+-----------------------------------------------------
   // | Methods |
   // +---------+
@@ -122,7 +261,8 @@ public class Block {
   } // getNum()
 
   /**
-   * Get the transaction stored in this block.
+   * Get the transaction stored in this block. For a block with a payload, this is the stand-in
+   * for its transactions; use getTransactions() for the transactions themselves.
    *
    * @return the transaction.
    */
@@ -130,6 +270,103 @@ public class Block {
     return transaction;
   } // getTransaction()
 
+  /**
+   * Determine whether the block holds a payload of transactions rather than just one.
+   *
+   * @return true if it has a payload, false otherwise.
+   */
+  public boolean hasPayload() {
+    return payload != null;
+  } // hasPayload()
+
+  /**
+   * Determine whether the block is just the header of a block with a payload: its transaction
+   * is the stand-in for transactions it does not hold. Such a block hashes correctly but cannot
+   * go in a chain, since there are no transactions to apply.
+   *
+   * @return true if it is just a header, false otherwise.
+   */
+  public boolean isHeaderOnly() {
+    return payload == null && transaction.getMerkleRoot() != null;
+  } // isHeaderOnly()
+
+  /**
+   * Get the number of transactions in the block.
+   *
+   * @return the number of transactions.
+   */
+  public int getTransactionCount() {
+    return (payload == null) ? 1 : payload.length;
+  } // getTransactionCount()
+
+  /**
+   * Get one of the transactions in the block.
+   *
+   * @param index The index of the transaction, from 0.
+   *
+   * @return that transaction.
+   *
+   * @throws IndexOutOfBoundsException if there is no transaction at that index.
+   */
+  public Transaction getTransaction(int index) {
+    if (payload != null) {
+      return payload[index];
+    } else if (index != 0) {
+      throw new IndexOutOfBoundsException(index);
+    } // if
+    return transaction;
+  } // getTransaction(int)
+
+  /**
+   * Get all the transactions in the block, in order.
+   *
+   * @return an unmodifiable list of the transactions.
+   */
+  public List<Transaction> getTransactions() {
+    return (payload == null) ? Collections.singletonList(transaction)
+        : Collections.unmodifiableList(Arrays.asList(payload));
+  } // getTransactions()
+
+  /**
+   * Get the root of the Merkle tree of the transactions.
+   *
+   * @return the root, or null if the block holds just one transaction.
+   */
+  public Hash getMerkleRoot() {
+    return transaction.getMerkleRoot();
+  } // getMerkleRoot()
+
+  /**
+   * Prove that one of the transactions is in the block.
+   *
+   * @param index The index of the transaction.
+   *
+   * @return a proof that can be checked against the header of the block.
+   *
+   * @throws IllegalStateException if the block has no payload.
+   * @throws IndexOutOfBoundsException if there is no transaction at that index.
+   */
+  public MerkleProof prove(int index) {
+    if (payload == null) {
+      throw new IllegalStateException("Block has no payload");
+    } // if
+    if (tree == null) {
+      tree = new MerkleTree(Arrays.asList(payload));
+    } // if
+    return tree.prove(index);
+  } // prove(int)
+
+  /**
+   * Get the header of the block: a block with the same number, previous hash, nonce, and hash,
+   * whose only transaction is the stand-in for the payload. It is all a client needs to check
+   * the hash and proofs that transactions are in the block.
+   *
+   * @return the header, or this block if it holds just one transaction.
+   */
+  public Block getHeader() {
+    return (payload == null) ? this : new Block(num, transaction, prevHash, nonce, thisHash);
+  } // getHeader()
+
   /**
    * Get the nonce of this block.
    *
@@ -166,6 +403,19 @@ public class Block {
     StringBuilder str = new StringBuilder();
     str.append("Block ");
     str.append(num);
+    if (payload != null) {
+      str.append(" (Transactions: ");
+      str.append(payload.length);
+      str.append(", Merkle root: ");
+      str.append(getMerkleRoot());
+      str.append(", Nonce: ");
+      str.append(nonce);
+      str.append(", prevHash: ");
+      str.append(prevHash);
+      str.append(", hash: ");
+      str.append(thisHash);
+      return str.toString();
+    } // if
     str.append(" (Transaction: [Source: ");
     str.append(transaction.getSource());
     str.append(", Target: ");
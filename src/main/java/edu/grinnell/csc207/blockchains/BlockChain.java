@@ -1,12 +1,26 @@
 package edu.grinnell.csc207.blockchains;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * A full blockchain.
  *
+ * One thread at a time may change the chain; appends and removals take the write lock. Readers
+ * never lock. Blocks are read from an immutable snapshot that the writer publishes after each
+ * change, so iterating never waits for appends and never sees half of one. Balance and history
+ * queries read optimistically and only wait if a change lands in the middle of the query.
+ *
  * @author Lily Blanchard
  * @author AJ Trimble
  */
@@ -16,30 +30,63 @@ public class BlockChain implements Iterable<Transaction> {
   // +--------+
 
   /**
-   * The front of the list.
+   * The blocks, indexed by height.
    */
-  Node front;
+  BlockStorage store;
 
   /**
-   * The number of blocks in the list.
+   * The heights of the blocks, by hash.
    */
-  int size;
+  HashIndex index;
 
   /**
-   * The back of the list.
+   * Validator.
    */
-  Node back;
+  HashValidator check;
 
   /**
-   * Validator.
+   * The miner used to find nonces.
    */
-  HashValidator check;
+  volatile Miner miner = Miner.getDefault();
+
+  /** Held by whoever changes the chain. */
+  final StampedLock lock = new StampedLock();
+
+  /** The chain as of the last change. */
+  volatile ChainSnapshot snapshot;
+
+  /** The number of changes made so far. */
+  long version = 0;
+
+  /** The balances of everyone in the chain. */
+  Ledger ledger = new Ledger();
 
-  /** To store existing people and their balances. */
-  HashMap<String, Integer> balances = new HashMap<String, Integer>(10);
+  /** The heights of each user's blocks. */
+  PostingsIndex postings = new PostingsIndex();
+
+  /** Whether the index, ledger, and postings reflect the blocks in storage. */
+  volatile boolean replayed = true;
+
+  /** Held while checking the chain, which uses dummyList and the watermark below. */
+  final Object checkLock = new Object();
 
   /** A dummy list for use in isCorrect() and check(). */
-  HashMap<String, Integer> dummyList = new HashMap<String, Integer>(10);
+  BalanceTable dummyList = new BalanceTable();
+
+  /**
+   * The number of blocks, from the start of the chain, that have been verified and whose
+   * transactions are reflected in dummyList.
+   */
+  volatile int verified = 0;
+
+  /**
+   * The least size of the chain since the last check, which has to move the watermark back
+   * that far. Integer.MAX_VALUE if nothing has been removed.
+   */
+  AtomicInteger truncatedTo = new AtomicInteger(Integer.MAX_VALUE);
+
+  /** For each verified block, the mark of dummyList just before its transaction. */
+  int[] verifiedMarks = new int[16];
 
   // +--------------+------------------------------------------------
   // | Constructors |
@@ -51,13 +98,35 @@ public class BlockChain implements Iterable<Transaction> {
    * @param check1 The validator used to check elements.
    */
   public BlockChain(HashValidator check1) {
-    this.front =
-        new Node(new Block(0, new Transaction("", "", 0), new Hash(new byte[] {}), check1));
-    this.size = 1;
-    this.back = this.front;
-    this.check = check1;
+    this(check1, new BlockStore());
   } // BlockChain(HashValidator)
 
+  /**
+   * Create a blockchain that keeps its blocks in the given storage. If the storage already holds
+   * blocks, they become the chain; we trust their stored hashes rather than checking them again.
+   * Otherwise we start the chain with a new initial block.
+   *
+   * Creating a chain over stored blocks reads none of them. The hash index, ledger, and postings
+   * are rebuilt from the blocks the first time anything needs them, which takes one pass over
+   * the chain.
+   *
+   * @param check1 The validator used to check elements.
+   * @param store1 Where to keep the blocks.
+   */
+  public BlockChain(HashValidator check1, BlockStorage store1) {
+    this.store = store1;
+    this.index = new HashIndex(store1);
+    this.check = check1;
+    if (store1.size() == 0) {
+      store1.add(new Block(0, new Transaction("", "", 0), new Hash(new byte[] {}), check1));
+      index.add(store1.last().getHash(), 0);
+      ledger.apply(store1.last().getTransaction());
+    } else {
+      replayed = false;
+    } // if
+    publish();
+  } // BlockChain(HashValidator, BlockStorage)
+
   // +---------+-----------------------------------------------------
   // | Helpers |
   // +---------+
@@ -75,33 +144,314 @@ public class BlockChain implements Iterable<Transaction> {
   public boolean checkTransaction(String p1, String p2, int amt) {
     if (p1.equals("") && amt > -1) {
       // if deposit
-      if (!dummyList.containsKey("Bank")) {
-        dummyList.put("Bank", 1000);
+      int bank = dummyList.id("Bank");
+      if (!dummyList.has(bank)) {
+        dummyList.put(bank, 1000);
       } else {
-        dummyList.replace("Bank", dummyList.get("Bank") - amt);
+        dummyList.put(bank, dummyList.get(bank) - amt);
       } // if bank does not exist
-    } else if (dummyList.containsKey(p1) && dummyList.get(p1) >= amt && amt > -1) {
-      dummyList.replace(p1, dummyList.get(p1) - amt);
     } else {
-      return false;
+      int source = dummyList.find(p1);
+      if (dummyList.has(source) && dummyList.get(source) >= amt && amt > -1) {
+        dummyList.put(source, dummyList.get(source) - amt);
+      } else {
+        return false;
+      } // if
     } // if
 
-    if (dummyList.containsKey(p2)) {
-      dummyList.replace(p2, dummyList.get(p2) + amt);
+    int target = dummyList.id(p2);
+    if (dummyList.has(target)) {
+      dummyList.put(target, dummyList.get(target) + amt);
     } else {
-      dummyList.put(p2, amt);
+      dummyList.put(target, amt);
     } // if target exists
 
     return true;
   } // checkTransaction(String, String, int)
 
+  /**
+   * Determine if a block has a valid hash that is correct for its contents and follows the
+   * given previous hash. This does not depend on any other block, so many blocks may be checked
+   * at once.
+   *
+   * @param here the block
+   * @param prevHash the hash the block should follow
+   * @return whether the block checks out
+   */
+  boolean isValidBlock(Block here, Hash prevHash) {
+    return check.isValid(here.getHash()) && here.computeHash().equals(here.getHash())
+        && here.getPrevHash().equals(prevHash) && !here.isHeaderOnly();
+  } // isValidBlock(Block, Hash)
+
+  /**
+   * Determine if the block at a height is valid and follows the block before it.
+   *
+   * @param snap the blocks
+   * @param height the height of the block
+   * @return whether the block checks out
+   */
+  boolean isValidBlock(ChainSnapshot snap, int height) {
+    Block here = snap.getBlock(height);
+    return isValidBlock(here,
+        (height == 0) ? here.getPrevHash() : snap.getBlock(height - 1).getHash());
+  } // isValidBlock(ChainSnapshot, int)
+
+  /**
+   * Verify the blocks after the verified ones, up to a height, replaying their transactions into
+   * dummyList and moving the watermark past each block that checks out.
+   *
+   * @param snap the blocks
+   * @param to the height to stop at
+   * @param checkBlocks whether to check the hashes of the blocks as well as their transactions
+   * @return true if every block checks out, false otherwise
+   */
+  boolean verifyRest(ChainSnapshot snap, int to, boolean checkBlocks) {
+    Hash prevHolder = (verified == 0) ? snap.getBlock(0).getPrevHash()
+        : snap.getBlock(verified - 1).getHash();
+    Iterator<Block> blocks = snap.blocks(verified, to);
+    while (blocks.hasNext()) {
+      Block here = blocks.next();
+      int mark = dummyList.mark();
+      if ((!checkBlocks || isValidBlock(here, prevHolder)) && checkTransactions(here)) {
+        if (verified == verifiedMarks.length) {
+          verifiedMarks = Arrays.copyOf(verifiedMarks, 2 * verified);
+        } // if
+        verifiedMarks[verified++] = mark;
+        prevHolder = here.getHash();
+      } else {
+        dummyList.rollbackTo(mark);
+        return false;
+      } // if
+    } // while
+    return true;
+  } // verifyRest(ChainSnapshot, int, boolean)
+
+  /**
+   * Check every transaction in a block, in order, updating dummyList as we go.
+   *
+   * @param blk the block
+   * @return true if every transaction is valid, false otherwise
+   */
+  boolean checkTransactions(Block blk) {
+    for (Transaction t : blk.getTransactions()) {
+      if (!checkTransaction(t.getSource(), t.getTarget(), t.getAmount())) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // checkTransactions(Block)
+
+  /**
+   * Forget everything verified so far.
+   */
+  void unverifyAll() {
+    dummyList.clear();
+    verified = 0;
+  } // unverifyAll()
+
+  /**
+   * Move the watermark back one block, undoing its transaction in dummyList.
+   */
+  void unverifyLast() {
+    dummyList.rollbackTo(verifiedMarks[--verified]);
+  } // unverifyLast()
+
+  /**
+   * Get ready to check the chain: move the watermark back below any blocks removed since the
+   * last check and take the snapshot to check. Call only while holding checkLock.
+   *
+   * The writer lowers the truncation mark before it publishes the snapshot without the removed
+   * blocks, so we read the two together under the read lock; otherwise we could take the mark
+   * and then check the old snapshot, removed blocks and all.
+   *
+   * @return the snapshot
+   */
+  ChainSnapshot startCheck() {
+    int cut;
+    ChainSnapshot snap;
+    long stamp = lock.readLock();
+    try {
+      cut = truncatedTo.getAndSet(Integer.MAX_VALUE);
+      snap = this.snapshot;
+    } finally {
+      lock.unlockRead(stamp);
+    } // try/finally
+    cut = Math.min(cut, snap.getSize());
+    while (verified > cut) {
+      unverifyLast();
+    } // while
+    return snap;
+  } // startCheck()
+
+  /**
+   * Make sure that each of several blocks has a valid hash that is correct for its contents.
+   * The blocks are checked in parallel.
+   *
+   * @param blks the blocks
+   * @throws IllegalArgumentException if some block does not check out
+   */
+  void checkHashes(List<Block> blks) throws IllegalArgumentException {
+    int bad = IntStream.range(0, blks.size()).parallel()
+        .filter((i) -> !check.isValid(blks.get(i).getHash())
+            || !blks.get(i).getHash().equals(blks.get(i).computeHash())
+            || blks.get(i).isHeaderOnly())
+        .findFirst().orElse(-1);
+    if (bad >= 0) {
+      throw new IllegalArgumentException("Invalid hash in block " + bad + " of batch");
+    } // if
+  } // checkHashes(List<Block>)
+
+  /**
+   * Make sure that several blocks follow one another and a given hash.
+   *
+   * @param blks the blocks
+   * @param prevHash the hash the first block should follow
+   * @throws IllegalArgumentException if some block does not follow the one before
+   */
+  void checkLinks(List<Block> blks, Hash prevHash) throws IllegalArgumentException {
+    for (int i = 0; i < blks.size(); i++) {
+      if (!blks.get(i).getPrevHash().equals(prevHash)) {
+        throw new IllegalArgumentException("Prev hash wrong in block " + i + " of batch");
+      } // if
+      prevHash = blks.get(i).getHash();
+    } // for
+  } // checkLinks(List<Block>, Hash)
+
+  /**
+   * Add checked blocks to the end of the chain, updating the index, ledger, and postings. If
+   * the storage fails part way, we take back what we added. The ledger keeps an undo entry per
+   * transaction, so we record the blocks one at a time rather than merge their changes. Call
+   * only while holding the write lock.
+   *
+   * @param blks the blocks
+   */
+  void addAll(List<Block> blks) {
+    int added = 0;
+    try {
+      for (Block blk : blks) {
+        store.add(blk);
+        added++;
+        index.add(blk.getHash(), store.size() - 1);
+      } // for
+    } catch (RuntimeException e) {
+      for (; added > 0; added--) {
+        index.remove(store.removeLast().getHash(), store.size());
+      } // for
+      throw e;
+    } // try/catch
+    int height = store.size() - blks.size();
+    for (Block blk : blks) {
+      record(blk, height++);
+    } // for
+  } // addAll(List<Block>)
+
+  /**
+   * Apply the transactions in a block to the ledger and postings. Call only while holding the
+   * write lock.
+   *
+   * @param blk the block
+   * @param height the height of the block
+   */
+  void record(Block blk, int height) {
+    for (Transaction t : blk.getTransactions()) {
+      ledger.apply(t);
+    } // for
+    postings.add(blk, height);
+  } // record(Block, int)
+
+  /**
+   * Remove the last block, updating the index, ledger, and postings. Call only while holding
+   * the write lock.
+   *
+   * @return the block removed
+   */
+  Block dropLast() {
+    Block blk = store.removeLast();
+    index.remove(blk.getHash(), store.size());
+    for (int i = blk.getTransactionCount(); i > 0; i--) {
+      ledger.undo();
+    } // for
+    postings.remove(blk, store.size());
+    truncatedTo.accumulateAndGet(store.size(), Math::min);
+    return blk;
+  } // dropLast()
+
+  /**
+   * Rebuild the index, ledger, and postings from the blocks in storage, unless we have already.
+   * Call only while holding the write lock.
+   */
+  void replay() {
+    if (replayed) {
+      return;
+    } // if
+    int height = 0;
+    for (Block blk : store) {
+      index.add(blk.getHash(), height);
+      record(blk, height++);
+    } // for
+    replayed = true;
+  } // replay()
+
+  /**
+   * Make sure the index, ledger, and postings reflect the blocks in storage.
+   */
+  void catchUp() {
+    if (!replayed) {
+      long stamp = lock.writeLock();
+      try {
+        replay();
+      } finally {
+        lock.unlockWrite(stamp);
+      } // try/finally
+    } // if
+  } // catchUp()
+
+  /**
+   * Publish a snapshot of the chain as it is now. Call only while holding the write lock.
+   */
+  void publish() {
+    this.snapshot = new ChainSnapshot(store.view(), version++);
+  } // publish()
+
+  /**
+   * Answer a query without taking a lock, unless a change to the chain lands while it runs.
+   * A query that sees a change half made may fail, with an exception or an error, or return
+   * nonsense; either way, we throw its answer out and ask again while holding off the writer.
+   *
+   * @param <T> the type of answer
+   * @param query the query
+   * @return the answer
+   */
+  <T> T read(Supplier<T> query) {
+    catchUp();
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        T result = query.get();
+        if (lock.validate(stamp)) {
+          return result;
+        } // if
+      } catch (Throwable e) {
+        if (lock.validate(stamp)) {
+          throw e;
+        } // if
+      } // try/catch
+    } // if
+    stamp = lock.readLock();
+    try {
+      return query.get();
+    } finally {
+      lock.unlockRead(stamp);
+    } // try/finally
+  } // read(Supplier<T>)
+
   /**
    * Returns the first node.
    *
    * @return the first node
    */
   public Node getFront() {
-    return this.front;
+    return snapshot.getFront();
   } // getFront()
 
   /**
@@ -110,18 +460,66 @@ public class BlockChain implements Iterable<Transaction> {
    * @return the last node
    */
   public Node getBack() {
-    return this.back;
+    return snapshot.getBack();
   } // getBack()
 
+  /**
+   * Returns a snapshot of the chain as of the last change. The snapshot stays the same as the
+   * chain changes.
+   *
+   * @return the snapshot
+   */
+  public ChainSnapshot snapshot() {
+    return this.snapshot;
+  } // snapshot()
+
   /**
    * Returns the hash of users and balances.
    *
-   * @return the hash of users and balances
+   * @return a new hash of users and balances
    */
   public HashMap<String, Integer> getBalances() {
-    return balances;
+    return read(() -> ledger.balances());
   } // getBalances()
 
+  /**
+   * Returns the ledger of balances, which the chain keeps up to date. The ledger changes with
+   * the chain, so only the writer should read it directly.
+   *
+   * @return the ledger
+   */
+  public Ledger getLedger() {
+    catchUp();
+    return this.ledger;
+  } // getLedger()
+
+  /**
+   * Returns the storage that holds the blocks. Only the writer should use it directly.
+   *
+   * @return the storage
+   */
+  public BlockStorage getStorage() {
+    return this.store;
+  } // getStorage()
+
+  /**
+   * Returns the miner used to find nonces.
+   *
+   * @return the miner
+   */
+  public Miner getMiner() {
+    return this.miner;
+  } // getMiner()
+
+  /**
+   * Sets the miner used to find nonces.
+   *
+   * @param miner1 the new miner
+   */
+  public void setMiner(Miner miner1) {
+    this.miner = miner1;
+  } // setMiner(Miner)
+
   // +---------+-----------------------------------------------------
   // | Methods |
   // +---------+
@@ -134,25 +532,130 @@ public class BlockChain implements Iterable<Transaction> {
    * @return a new block with correct number, hashes, and such.
    */
   public Block mine(Transaction t) {
-    return new Block(size + 1, t, this.back.block.getHash(), check);
+    ChainSnapshot snap = this.snapshot;
+    return miner.mine(snap.getSize() + 1, t, snap.getHash(), check);
   } // mine(Transaction)
 
+  /**
+   * Mine for a new valid block for the end of the chain that holds several transactions. The
+   * miner searches over the header alone, which commits to the transactions through their
+   * Merkle root, so the work does not grow with the number of transactions.
+   *
+   * @param transactions The transactions that go in the block, of which there must be at least
+   *        one.
+   *
+   * @return a new block with correct number, hashes, and such.
+   *
+   * @throws IllegalArgumentException if there are no transactions.
+   */
+  public Block mine(List<Transaction> transactions) {
+    Transaction[] payload = transactions.toArray(new Transaction[0]);
+    if (payload.length == 0) {
+      throw new IllegalArgumentException("No transactions");
+    } // if
+    Transaction commitment = Block.commit(payload);
+    ChainSnapshot snap = this.snapshot;
+    Block header = miner.mine(snap.getSize() + 1, commitment, snap.getHash(), check);
+    return new Block(header.getNum(), payload, commitment, header.getPrevHash(),
+        header.getNonce(), header.getHash());
+  } // mine(List<Transaction>)
+
+  /**
+   * Start mining for a new block for the end of the chain without waiting for it. The search
+   * starts over if the chain changes before it finishes.
+   *
+   * @param t The transaction that goes in the block.
+   *
+   * @return a task that completes with the new block and reports progress.
+   */
+  public MiningTask mineAsync(Transaction t) {
+    MiningTask task = new MiningTask(this, t);
+    miner.execute(task);
+    return task;
+  } // mineAsync(Transaction)
+
+  /**
+   * Start mining for a new block for the end of the chain, giving up after a while.
+   *
+   * @param t The transaction that goes in the block.
+   * @param timeout How long to mine before giving up.
+   * @param unit The unit of the timeout.
+   *
+   * @return a task that completes with the new block, or with a TimeoutException if the time
+   *         runs out first.
+   */
+  public MiningTask mineAsync(Transaction t, long timeout, TimeUnit unit) {
+    MiningTask task = mineAsync(t);
+    task.orTimeout(timeout, unit);
+    return task;
+  } // mineAsync(Transaction, long, TimeUnit)
+
   /**
    * Get the number of blocks curently in the chain.
    *
    * @return the number of blocks in the chain, including the initial block.
    */
   public int getSize() {
-    return this.size;
+    return snapshot.getSize();
   } // getSize()
 
+  /**
+   * Get the block at a given height. The initial block is at height 0.
+   *
+   * @param height The height of the block.
+   *
+   * @return that block.
+   *
+   * @throws IndexOutOfBoundsException if the chain has no block at that height.
+   */
+  public Block getBlock(int height) {
+    return snapshot.getBlock(height);
+  } // getBlock(int)
+
+  /**
+   * Find the block with a given hash.
+   *
+   * @param hash The hash of the block.
+   *
+   * @return that block, or null if no block in the chain has that hash.
+   */
+  public Block getBlockByHash(Hash hash) {
+    return read(() -> {
+      int height = index.find(hash);
+      return (height < 0) ? null : store.get(height);
+    });
+  } // getBlockByHash(Hash)
+
+  /**
+   * Find the height of the block with a given hash.
+   *
+   * @param hash The hash of the block.
+   *
+   * @return the height of that block, or -1 if no block in the chain has that hash.
+   */
+  public int getHeight(Hash hash) {
+    return read(() -> index.find(hash));
+  } // getHeight(Hash)
+
+  /**
+   * Determine whether a block with a given hash is in the chain.
+   *
+   * @param hash The hash of the block.
+   *
+   * @return true if some block in the chain has that hash, false otherwise.
+   */
+  public boolean contains(Hash hash) {
+    return read(() -> index.find(hash) >= 0);
+  } // contains(Hash)
+
   /**
    * Add a block to the end of the chain.
    *
    * @param blk The block to add to the end of the chain.
    *
    * @throws IllegalArgumentException if (a) the hash is not valid, (b) the hash is not appropriate
-   *         for the contents, or (c) the previous hash is incorrect.
+   *         for the contents, (c) the previous hash is incorrect, or (d) the block is just the
+   *         header of a block with a payload.
    */
   public void append(Block blk) throws IllegalArgumentException {
     if (!check.isValid(blk.getHash())) {
@@ -163,25 +666,89 @@ public class BlockChain implements Iterable<Transaction> {
       throw new IllegalArgumentException("Hashes inequal.");
     } // if
 
-    if (!blk.getPrevHash().equals(back.block.getHash())) {
-      throw new IllegalArgumentException("Prev hash wrong.");
+    if (blk.isHeaderOnly()) {
+      throw new IllegalArgumentException("Header without its transactions.");
     } // if
 
-    this.back.next = new Node(blk);
-    this.back = this.back.next;
-    this.size++;
-    if (balances.containsKey(blk.getTransaction().getSource())) {
-      balances.replace(blk.getTransaction().getSource(),
-          balances.get(blk.getTransaction().getSource()) - blk.getTransaction().getAmount());
-    } // if source exists
-    if (balances.containsKey(blk.getTransaction().getTarget())) {
-      balances.replace(blk.getTransaction().getTarget(),
-          balances.get(blk.getTransaction().getTarget()) + blk.getTransaction().getAmount());
-    } else {
-      balances.put(blk.getTransaction().getTarget(), blk.getTransaction().getAmount());
-    } // if target exists
+    long stamp = lock.writeLock();
+    try {
+      replay();
+      if (!blk.getPrevHash().equals(store.last().getHash())) {
+        throw new IllegalArgumentException("Prev hash wrong.");
+      } // if
+
+      store.add(blk);
+      index.add(blk.getHash(), store.size() - 1);
+      record(blk, store.size() - 1);
+      publish();
+    } finally {
+      lock.unlockWrite(stamp);
+    } // try/finally
   } // append()
 
+  /**
+   * Add several blocks to the end of the chain at once. Either all of them are added or, if any
+   * is wrong, none are. The hashes of the blocks are checked in parallel. Every block is stored
+   * before any is applied, so a failure in the storage leaves the ledger alone; the ledger and
+   * postings then take the blocks one at a time, as append would.
+   *
+   * @param blks The blocks to add, in order.
+   *
+   * @throws IllegalArgumentException if, for any block, (a) the hash is not valid, (b) the hash
+   *         is not appropriate for the contents, or (c) the previous hash is incorrect.
+   */
+  public void appendAll(List<Block> blks) throws IllegalArgumentException {
+    checkHashes(blks);
+    long stamp = lock.writeLock();
+    try {
+      replay();
+      checkLinks(blks, store.last().getHash());
+      addAll(blks);
+      publish();
+    } finally {
+      lock.unlockWrite(stamp);
+    } // try/finally
+  } // appendAll(List<Block>)
+
+  /**
+   * Replace the blocks after a given height with others, as one change. Readers see the chain
+   * either before or after, never in between. Either all of the new blocks are added or, if any
+   * is wrong, the chain stays as it was.
+   *
+   * @param height The height of the last block to keep.
+   * @param blks The blocks to add after it, in order.
+   *
+   * @return the blocks removed, from the highest down.
+   *
+   * @throws IllegalArgumentException if, for any block, (a) the hash is not valid, (b) the hash
+   *         is not appropriate for the contents, or (c) the previous hash is incorrect.
+   * @throws IndexOutOfBoundsException if the chain has no block at that height.
+   */
+  public List<Block> replaceAfter(int height, List<Block> blks) throws IllegalArgumentException {
+    checkHashes(blks);
+    long stamp = lock.writeLock();
+    try {
+      replay();
+      checkLinks(blks, store.get(height).getHash());
+      ArrayList<Block> removed = new ArrayList<Block>();
+      while (store.size() - 1 > height) {
+        removed.add(dropLast());
+      } // while
+      try {
+        addAll(blks);
+      } catch (RuntimeException e) {
+        // Put back what we removed.
+        Collections.reverse(removed);
+        addAll(removed);
+        throw e;
+      } // try/catch
+      publish();
+      return removed;
+    } finally {
+      lock.unlockWrite(stamp);
+    } // try/finally
+  } // replaceAfter(int, List<Block>)
+
   /**
    * Attempt to remove the last block from the chain.
    *
@@ -189,34 +756,19 @@ public class BlockChain implements Iterable<Transaction> {
    *         otherwise (in which case the last block is removed).
    */
   public boolean removeLast() {
-    if (size > 1) {
-      Node here = this.front;
-      while (here.next != this.back) {
-        here = here.next;
-      } // while
-
-      // update balances
-      if (balances.containsKey(here.next.getBlock().getTransaction().getSource())) {
-        balances.replace(here.next.getBlock().getTransaction().getSource(),
-            balances.get(here.next.getBlock().getTransaction().getSource())
-                + here.next.getBlock().getTransaction().getAmount());
-      } // if source exists
-      if (balances.containsKey(here.next.getBlock().getTransaction().getTarget())) {
-        balances.replace(here.next.getBlock().getTransaction().getTarget(),
-            balances.get(here.next.getBlock().getTransaction().getTarget())
-                - here.next.getBlock().getTransaction().getAmount());
+    long stamp = lock.writeLock();
+    try {
+      replay();
+      if (store.size() > 1) {
+        dropLast();
+        publish();
+        return true;
       } else {
-        balances.put(here.next.getBlock().getTransaction().getTarget(),
-            here.next.getBlock().getTransaction().getAmount());
-      } // if target exists
-
-      here.next = null;
-      this.back = here;
-      size--;
-      return true;
-    } else {
-      return false;
-    } // if
+        return false;
+      } // if
+    } finally {
+      lock.unlockWrite(stamp);
+    } // try/finally
   } // removeLast()
 
   /**
@@ -225,7 +777,7 @@ public class BlockChain implements Iterable<Transaction> {
    * @return the hash of the last sblock in the chain.
    */
   public Hash getHash() {
-    return this.back.block.getHash();
+    return snapshot.getHash();
   } // getHash()
 
   /**
@@ -236,24 +788,64 @@ public class BlockChain implements Iterable<Transaction> {
    * @return true if the blockchain is correct and false otherwise.
    */
   public boolean isCorrect() {
-    dummyList.clear();
-    Node here = this.front;
-    Hash prevHolder = this.front.getBlock().getPrevHash();
-    while (here != null) {
-      if (check.isValid(here.block.getHash())
-          && here.block.computeHash().equals(here.block.getHash())
-          && here.block.getPrevHash().equals(prevHolder)
-          && checkTransaction(here.block.getTransaction().getSource(),
-              here.block.getTransaction().getTarget(), here.block.getTransaction().getAmount())) {
-        prevHolder = here.getBlock().getHash();
-        here = here.next;
-      } else {
-        return false;
-      } // if
-    } // while
-    return true;
+    synchronized (checkLock) {
+      ChainSnapshot snap = startCheck();
+      unverifyAll();
+      return verifyRest(snap, snap.getSize(), true);
+    } // synchronized
   } // isCorrect()
 
+  /**
+   * Determine if the blockchain is correct, as isCorrect() does, but only check the blocks
+   * added since the last check that got that far. Blocks that were already checked are trusted,
+   * so changes made to them in place go unnoticed; use isCorrect() for a full audit.
+   *
+   * @return true if the blockchain is correct and false otherwise.
+   */
+  public boolean isCorrectIncremental() {
+    synchronized (checkLock) {
+      ChainSnapshot snap = startCheck();
+      return verifyRest(snap, snap.getSize(), true);
+    } // synchronized
+  } // isCorrectIncremental()
+
+  /**
+   * Check the whole blockchain as isCorrect() does, using every processor. The hash and link
+   * checks of different blocks are independent, so we spread them out; only the replay of the
+   * balances runs block by block, once we know how far the hashes are good.
+   *
+   * @return the height of the first block that is wrong, or -1 if the blockchain is correct.
+   */
+  public int verifyParallel() {
+    synchronized (checkLock) {
+      ChainSnapshot snap = startCheck();
+      int size = snap.getSize();
+      int firstBad = IntStream.range(0, size).parallel().filter((h) -> !isValidBlock(snap, h))
+          .findFirst().orElse(size);
+      unverifyAll();
+      verifyRest(snap, firstBad, false);
+      return (verified == size) ? -1 : verified;
+    } // synchronized
+  } // verifyParallel()
+
+  /**
+   * Determine if the blockchain is correct, checking blocks in parallel.
+   *
+   * @return true if the blockchain is correct and false otherwise.
+   */
+  public boolean isCorrectParallel() {
+    return verifyParallel() < 0;
+  } // isCorrectParallel()
+
+  /**
+   * Get the number of blocks, from the start of the chain, known to be correct.
+   *
+   * @return the number of verified blocks.
+   */
+  public int getVerifiedHeight() {
+    return Math.min(this.verified, truncatedTo.get());
+  } // getVerifiedHeight()
+
   /**
    * Determine if the blockchain is correct in that (a) the balances are legal/correct at every
    * step, (b) that every block has a correct previous hash field, (c) that every block has a hash
@@ -269,22 +861,46 @@ public class BlockChain implements Iterable<Transaction> {
     } // if
   } // check()
 
+  /**
+   * Determine if the blockchain is correct, checking only the blocks added since the last check
+   * that got that far.
+   *
+   * @throws Exception If things are wrong at any block.
+   */
+  public void checkIncremental() throws Exception {
+    if (!isCorrectIncremental()) {
+      throw new Exception("Chain is invalid at block " + verified + ".\n");
+    } // if
+  } // checkIncremental()
+
   /**
    * Return an iterator of all the people who participated in the system.
    *
    * @return an iterator of all the people in the system.
    */
   public Iterator<String> users() {
-    HashSet<String> users = new HashSet<>();
+    return read(() -> ledger.users());
+  } // users()
 
-    for (Transaction trans : this) {
-      if (!trans.getTarget().isEmpty()) {
-        users.add(trans.getTarget());
-      } // if
-    } // for
+  /**
+   * Determine whether someone has participated in the system.
+   *
+   * @param user The person.
+   *
+   * @return true if they have sent or received something, false otherwise.
+   */
+  public boolean isUser(String user) {
+    return read(() -> ledger.isUser(user));
+  } // isUser(String)
 
-    return users.iterator();
-  } // users()
+  /**
+   * Find the number of people who participated in the system.
+   *
+   * @return the number of people in the system.
+   */
+  public int getUserCount() {
+    return read(() -> ledger.userCount());
+  } // getUserCount()
 
   /**
    * Find one user's balance.
@@ -294,60 +910,115 @@ public class BlockChain implements Iterable<Transaction> {
    * @return that user's balance (or 0, if the user is not in the system).
    */
   public int balance(String user) {
-    int bal = 0;
+    return read(() -> (int) ledger.balance(user));
+  } // balance()
 
-    for (Transaction trans : this) {
-      if (trans.getTarget().equals(user)) {
-        bal += trans.getAmount();
-      } // if
-      if (trans.getSource().equals(user)) {
-        bal -= trans.getAmount();
-      } // if
-    } // for
+  /**
+   * Find one user's balance as it was just after the block at a given height.
+   *
+   * @param user The user whose balance we want to find.
+   * @param height The height of the block. The initial block is at height 0.
+   *
+   * @return that user's balance then (or 0, if the user was not yet in the system).
+   */
+  public int balanceAt(String user, int height) {
+    return read(() -> (int) postings.balanceAt(user, height, store));
+  } // balanceAt(String, int)
 
-    return bal;
-  } // balance()
+  /**
+   * Get some of the blocks in which a user sent or received something, in order. To page
+   * through them, ask again starting just after the last block returned.
+   *
+   * @param user The user.
+   * @param fromHeight The least height of a block to return.
+   * @param limit The most blocks to return.
+   *
+   * @return the blocks.
+   */
+  public List<Block> history(String user, int fromHeight, int limit) {
+    return read(() -> {
+      int[] heights = postings.heights(user, fromHeight, limit);
+      ArrayList<Block> result = new ArrayList<Block>(heights.length);
+      for (int height : heights) {
+        result.add(store.get(height));
+      } // for
+      return result;
+    });
+  } // history(String, int, int)
+
+  /**
+   * Get the heights of some of the blocks in which a user sent or received something, in order.
+   *
+   * @param user The user.
+   * @param fromHeight The least height to return.
+   * @param limit The most heights to return.
+   *
+   * @return the heights.
+   */
+  public int[] historyHeights(String user, int fromHeight, int limit) {
+    return read(() -> postings.heights(user, fromHeight, limit));
+  } // historyHeights(String, int, int)
+
+  /**
+   * Count the blocks in which a user sent or received something.
+   *
+   * @param user The user.
+   *
+   * @return the number of blocks.
+   */
+  public int historySize(String user) {
+    return read(() -> postings.count(user));
+  } // historySize(String)
 
   /**
-   * Get an interator for all the blocks in the chain.
+   * Get an interator for all the blocks in the chain. The iterator walks the chain as it was
+   * when called, whatever happens to the chain afterwards.
    *
    * @return an iterator for all the blocks in the chain.
    */
   public Iterator<Block> blocks() {
-    return new Iterator<Block>() {
-      private Node here = BlockChain.this.front;
-
-      public boolean hasNext() {
-        return this.here != null;
-      } // hasNext()
-
-      public Block next() {
-        Block hereBlock = this.here.block;
-        this.here = this.here.next;
-        return hereBlock;
-      } // next()
-    };
+    return snapshot.blocks();
   } // blocks()
 
+  /**
+   * Get an interator for the blocks in a range of heights.
+   *
+   * @param from The height of the first block.
+   * @param to The height just past the last block.
+   *
+   * @return an iterator for those blocks.
+   */
+  public Iterator<Block> blocks(int from, int to) {
+    return snapshot.blocks(from, to);
+  } // blocks(int, int)
+
+  /**
+   * Get a stream of all the blocks in the chain, as it was when called. Call parallel() on the
+   * stream to spread the work over every processor.
+   *
+   * @return a stream of the blocks.
+   */
+  public Stream<Block> blockStream() {
+    return snapshot.blockStream();
+  } // blockStream()
+
+  /**
+   * Get a stream of all the transactions in the chain, as it was when called. Call parallel()
+   * on the stream to spread the work over every processor.
+   *
+   * @return a stream of the transactions.
+   */
+  public Stream<Transaction> transactionStream() {
+    return snapshot.transactionStream();
+  } // transactionStream()
+
   /**
    * Get an interator for all the transactions in the chain.
    *
    * @return an iterator for all the blocks in the chain.
    */
   public Iterator<Transaction> iterator() {
-    return new Iterator<Transaction>() {
-      private Node here = BlockChain.this.front;
-
-      public boolean hasNext() {
-        return this.here != null;
-      } // hasNext()
-
-      public Transaction next() {
-        Transaction hereTrans = this.here.block.getTransaction();
-        this.here = this.here.next;
-        return hereTrans;
-      } // next()
-    };
+    return snapshot.iterator();
   } // iterator()
 
 } // class BlockChain
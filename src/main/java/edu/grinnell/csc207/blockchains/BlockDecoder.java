@@ -0,0 +1,264 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads blocks written by BlockEncoder. Hashes are recomputed from the contents of each block
+ * rather than read, so a decoded block's hash always matches its contents.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class BlockDecoder implements Closeable {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** Where the blocks come from. */
+  private InputStream in;
+
+  /** The names read so far, by id. */
+  private ArrayList<String> names = new ArrayList<String>();
+
+  /** The hash of the block read last. */
+  private Hash lastHash = null;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a decoder that reads from a stream. The decoder buffers its input, so it may read
+   * past the last block it returns.
+   *
+   * @param in1 The stream.
+   */
+  public BlockDecoder(InputStream in1) {
+    this.in = (in1 instanceof BufferedInputStream) ? in1 : new BufferedInputStream(in1);
+  } // BlockDecoder(InputStream)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Read one byte, failing at the end of the stream.
+   *
+   * @return the byte, as an unsigned value.
+   *
+   * @throws IOException if the stream fails or ends.
+   */
+  int readByte() throws IOException {
+    int b = in.read();
+    if (b < 0) {
+      throw new EOFException("Stream ends in the middle of a block");
+    } // if
+    return b;
+  } // readByte()
+
+  /**
+   * Read the rest of an unsigned varint.
+   *
+   * @param first The first byte, already read.
+   *
+   * @return the value.
+   *
+   * @throws IOException if the stream fails, ends, or holds a varint that is too long.
+   */
+  long readVarLong(int first) throws IOException {
+    long val = first & 0x7f;
+    int b = first;
+    for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+      if (shift >= Long.SIZE) {
+        throw new IOException("Malformed varint");
+      } // if
+      b = readByte();
+      val |= (long) (b & 0x7f) << shift;
+    } // for
+    return val;
+  } // readVarLong(int)
+
+  /**
+   * Read an unsigned varint.
+   *
+   * @return the value.
+   *
+   * @throws IOException if the stream fails or ends.
+   */
+  long readVarLong() throws IOException {
+    return readVarLong(readByte());
+  } // readVarLong()
+
+  /**
+   * Undo the zigzag encoding of a signed value.
+   *
+   * @param val The encoded value.
+   *
+   * @return the signed value.
+   */
+  static long unzigzag(long val) {
+    return (val >>> 1) ^ -(val & 1);
+  } // unzigzag(long)
+
+  /**
+   * Read a count that must fit in an int.
+   *
+   * @return the count.
+   *
+   * @throws IOException if the stream fails or ends, or the count is too large.
+   */
+  int readCount() throws IOException {
+    long val = readVarLong();
+    if (val < 0 || val > Integer.MAX_VALUE) {
+      throw new IOException("Count out of range: " + val);
+    } // if
+    return (int) val;
+  } // readCount()
+
+  /**
+   * Read some raw bytes.
+   *
+   * @param count The number of bytes.
+   *
+   * @return the bytes.
+   *
+   * @throws IOException if the stream fails or ends.
+   */
+  byte[] readBytes(int count) throws IOException {
+    byte[] bytes = in.readNBytes(count);
+    if (bytes.length < count) {
+      throw new EOFException("Stream ends in the middle of a block");
+    } // if
+    return bytes;
+  } // readBytes(int)
+
+  /**
+   * Read a name reference.
+   *
+   * @return the name.
+   *
+   * @throws IOException if the stream fails or ends, or the reference is to no name.
+   */
+  String readName() throws IOException {
+    int ref = readCount();
+    if (ref == BlockEncoder.NULL_REF) {
+      return null;
+    } else if (ref == BlockEncoder.NEW_REF) {
+      String name = new String(readBytes(readCount()), StandardCharsets.UTF_8);
+      names.add(name);
+      return name;
+    } else if (ref - BlockEncoder.FIRST_ID < names.size()) {
+      return names.get(ref - BlockEncoder.FIRST_ID);
+    } else {
+      throw new IOException("Unknown name: " + ref);
+    } // if
+  } // readName()
+
+  /**
+   * Read a previous hash.
+   *
+   * @return the hash.
+   *
+   * @throws IOException if the stream fails or ends, refers to a block not read, or does not
+   *         match the block before.
+   */
+  Hash readPrevHash() throws IOException {
+    int tag = readCount();
+    if (tag == BlockEncoder.NULL_HASH) {
+      return null;
+    } else if (tag == BlockEncoder.SAME_HASH) {
+      if (lastHash == null) {
+        throw new IOException("No block before to take the hash of");
+      } // if
+      byte[] last = lastHash.contents;
+      int check = Math.min(BlockEncoder.CHECK_BYTES, last.length);
+      byte[] expected = readBytes(check);
+      if (!Arrays.equals(expected, 0, check, last, last.length - check, last.length)) {
+        throw new IOException("Previous hash does not match the block before");
+      } // if
+      return lastHash;
+    } else {
+      return Hash.wrap(readBytes(tag - BlockEncoder.FIRST_ID));
+    } // if
+  } // readPrevHash()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Read the next block.
+   *
+   * @return the block, or null at the end of the stream.
+   *
+   * @throws IOException if the stream fails or holds something other than blocks.
+   */
+  public Block read() throws IOException {
+    int first = in.read();
+    if (first < 0) {
+      return null;
+    } // if
+    int num = (int) unzigzag(readVarLong(first));
+    long nonce = unzigzag(readVarLong());
+    long amountOrCount = readVarLong();
+    Block blk;
+    if (amountOrCount >= BlockEncoder.PAYLOAD) {
+      long count = amountOrCount - BlockEncoder.PAYLOAD;
+      if (count < 1 || count > Integer.MAX_VALUE) {
+        throw new IOException("Payload size out of range: " + count);
+      } // if
+      List<Transaction> payload = new ArrayList<Transaction>();
+      for (long i = 0; i < count; i++) {
+        int amount = (int) unzigzag(readVarLong());
+        String source = readName();
+        payload.add(new Transaction(source, readName(), amount));
+      } // for
+      blk = new Block(num, payload, readPrevHash(), nonce);
+    } else {
+      int amount = (int) unzigzag(amountOrCount);
+      String source = readName();
+      String target = readName();
+      Hash prevHash = readPrevHash();
+      blk = new Block(num, new Transaction(source, target, amount), prevHash, nonce);
+    } // if
+    this.lastHash = blk.getHash();
+    return blk;
+  } // read()
+
+  /**
+   * Read blocks until the end of the stream, adding them to storage. To rebuild a chain written
+   * with BlockEncoder.writeAll, read into empty storage and then build the chain from it; call
+   * check() on the chain if the stream is not trusted.
+   *
+   * @param store Where to put the blocks.
+   *
+   * @return the number of blocks read.
+   *
+   * @throws IOException if the stream fails or holds something other than blocks.
+   */
+  public int readAll(BlockStorage store) throws IOException {
+    int count = 0;
+    for (Block blk = read(); blk != null; blk = read()) {
+      store.add(blk);
+      count++;
+    } // for
+    return count;
+  } // readAll(BlockStorage)
+
+  /**
+   * Close the stream.
+   *
+   * @throws IOException if the stream fails.
+   */
+  public void close() throws IOException {
+    in.close();
+  } // close()
+} // class BlockDecoder
@@ -0,0 +1,265 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Writes blocks to a stream in a compact binary form that BlockDecoder reads back. Numbers are
+ * varints, hashes are raw bytes, and each user name is written once and then referred to by a
+ * small number. A block whose previous hash is the hash of the block written just before it
+ * (as in a chain) stores only the last CHECK_BYTES bytes of it, which the decoder checks against
+ * the block it read before, so a stream with blocks changed or out of order fails to decode
+ * rather than coming back with links that merely look right. No block stores its own hash,
+ * since the decoder recomputes it. A typical block takes about fifteen bytes.
+ *
+ * For each block we write
+ *   the block number, the nonce, and the amount, as zigzag varints;
+ *   the source and the target, as name references; and
+ *   the previous hash, as a varint tag followed by the raw bytes if there are any.
+ * A block with a payload of many transactions writes PAYLOAD plus the number of transactions, as
+ * an unsigned varint, in place of the amount; no amount of a single transaction encodes that
+ * large. Then, instead of the source and target, come the amount, source, and target of each
+ * transaction in turn. Its Merkle root is not written, since the decoder rebuilds it.
+ * A name reference of 0 means null, 1 means a new name follows (as a varint length and UTF-8
+ * bytes), and n &gt; 1 means the (n-2)th name written. A hash tag of 0 means null, 1 means the
+ * hash of the block before (followed by its last bytes), and n &gt; 1 means n-2 raw bytes
+ * follow.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class BlockEncoder implements Flushable, Closeable {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The name reference for null. */
+  static final int NULL_REF = 0;
+
+  /** The name reference for a new name. */
+  static final int NEW_REF = 1;
+
+  /** The hash tag for null. */
+  static final int NULL_HASH = 0;
+
+  /** The hash tag for the hash of the block before. */
+  static final int SAME_HASH = 1;
+
+  /** The most bytes of the hash of the block before that we keep, to check the link. */
+  static final int CHECK_BYTES = 4;
+
+  /** What we add to references and tags that carry a number. */
+  static final int FIRST_ID = 2;
+
+  /** What a block with a payload adds to its number of transactions in place of the amount. */
+  static final long PAYLOAD = 1L << 32;
+
+  /** The most bytes a varint takes. */
+  static final int MAX_VARINT_BYTES = 10;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** Where the blocks go. */
+  private OutputStream out;
+
+  /** The ids of the names written so far. */
+  private HashMap<String, Integer> names = new HashMap<String, Integer>();
+
+  /** The hash of the block written last. */
+  private Hash lastHash = null;
+
+  /** Where we assemble each block before writing it. */
+  private byte[] buffer = new byte[128];
+
+  /** The number of bytes in the buffer. */
+  private int length;
+
+  /** The number of bytes written so far. */
+  private long written = 0;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an encoder that writes to a stream.
+   *
+   * @param out1 The stream.
+   */
+  public BlockEncoder(OutputStream out1) {
+    this.out = out1;
+  } // BlockEncoder(OutputStream)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make sure the buffer has room for more bytes.
+   *
+   * @param extra The number of bytes needed.
+   */
+  void reserve(int extra) {
+    if (this.length + extra > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(this.length + extra, 2 * buffer.length));
+    } // if
+  } // reserve(int)
+
+  /**
+   * Add an unsigned varint to the buffer.
+   *
+   * @param val The value, treated as unsigned.
+   */
+  void putVarLong(long val) {
+    reserve(MAX_VARINT_BYTES);
+    while ((val & ~0x7fL) != 0) {
+      buffer[length++] = (byte) ((val & 0x7f) | 0x80);
+      val >>>= 7;
+    } // while
+    buffer[length++] = (byte) val;
+  } // putVarLong(long)
+
+  /**
+   * Add a signed value to the buffer as a zigzag varint, so that small negative values stay
+   * small.
+   *
+   * @param val The value.
+   */
+  void putSigned(long val) {
+    putVarLong((val << 1) ^ (val >> 63));
+  } // putSigned(long)
+
+  /**
+   * Add raw bytes to the buffer.
+   *
+   * @param bytes The bytes.
+   */
+  void putBytes(byte[] bytes) {
+    reserve(bytes.length);
+    System.arraycopy(bytes, 0, buffer, length, bytes.length);
+    length += bytes.length;
+  } // putBytes(byte[])
+
+  /**
+   * Add a reference to a name to the buffer, adding the name to the dictionary if it is new.
+   *
+   * @param name The name.
+   */
+  void putName(String name) {
+    if (name == null) {
+      putVarLong(NULL_REF);
+      return;
+    } // if
+    Integer id = names.get(name);
+    if (id != null) {
+      putVarLong(id + FIRST_ID);
+    } else {
+      names.put(name, names.size());
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      putVarLong(NEW_REF);
+      putVarLong(bytes.length);
+      putBytes(bytes);
+    } // if
+  } // putName(String)
+
+  /**
+   * Add a previous hash to the buffer.
+   *
+   * @param hash The hash.
+   */
+  void putPrevHash(Hash hash) {
+    if (hash == null) {
+      putVarLong(NULL_HASH);
+    } else if (hash.equals(lastHash)) {
+      putVarLong(SAME_HASH);
+      int check = Math.min(CHECK_BYTES, hash.contents.length);
+      reserve(check);
+      System.arraycopy(hash.contents, hash.contents.length - check, buffer, length, check);
+      length += check;
+    } else {
+      putVarLong(hash.contents.length + FIRST_ID);
+      putBytes(hash.contents);
+    } // if
+  } // putPrevHash(Hash)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Write a block.
+   *
+   * @param blk The block to write.
+   *
+   * @throws IOException if the stream fails.
+   */
+  public void write(Block blk) throws IOException {
+    this.length = 0;
+    Transaction t = blk.getTransaction();
+    putSigned(blk.getNum());
+    putSigned(blk.getNonce());
+    if (blk.hasPayload()) {
+      putVarLong(PAYLOAD + blk.getTransactionCount());
+      for (Transaction each : blk.getTransactions()) {
+        putSigned(each.getAmount());
+        putName(each.getSource());
+        putName(each.getTarget());
+      } // for
+    } else {
+      putSigned(t.getAmount());
+      putName(t.getSource());
+      putName(t.getTarget());
+    } // if
+    putPrevHash(blk.getPrevHash());
+    out.write(buffer, 0, this.length);
+    this.written += this.length;
+    this.lastHash = blk.getHash();
+  } // write(Block)
+
+  /**
+   * Write all the blocks of a chain, in order.
+   *
+   * @param chain The chain.
+   *
+   * @throws IOException if the stream fails.
+   */
+  public void writeAll(BlockChain chain) throws IOException {
+    for (Block blk : chain.getStorage()) {
+      write(blk);
+    } // for
+  } // writeAll(BlockChain)
+
+  /**
+   * Get the number of bytes written so far.
+   *
+   * @return the number of bytes.
+   */
+  public long getBytesWritten() {
+    return this.written;
+  } // getBytesWritten()
+
+  /**
+   * Flush the stream.
+   *
+   * @throws IOException if the stream fails.
+   */
+  public void flush() throws IOException {
+    out.flush();
+  } // flush()
+
+  /**
+   * Close the stream.
+   *
+   * @throws IOException if the stream fails.
+   */
+  public void close() throws IOException {
+    out.close();
+  } // close()
+} // class BlockEncoder
@@ -0,0 +1,98 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A reusable block hasher. Each thread gets one digest and one encoding buffer, transactions
+ * keep their encoded names, and results go into an array supplied by the caller, so hashing a
+ * block in a loop allocates nothing once the hasher exists.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class BlockHasher {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The number of bytes in a block hash. */
+  public static final int HASH_BYTES = 32;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** One hasher per thread. */
+  private static final ThreadLocal<BlockHasher> HASHERS =
+      ThreadLocal.withInitial(BlockHasher::new);
+
+  /** The digest, reset after every hash. */
+  private MessageDigest md;
+
+  /** The buffer used to encode numbers. */
+  private byte[] scratch = new byte[Long.BYTES];
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new hasher. Most callers should share the one from get().
+   */
+  public BlockHasher() {
+    try {
+      this.md = MessageDigest.getInstance("sha-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Cannot load hash algorithm", e);
+    } // try/catch
+  } // BlockHasher()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the hasher for the current thread.
+   *
+   * @return that hasher.
+   */
+  public static BlockHasher get() {
+    return HASHERS.get();
+  } // get()
+
+  /**
+   * Compute the hash of a block with the given contents into a buffer.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   * @param nonce The nonce of the block.
+   * @param out Where to put the hash.
+   * @param offset Where in out the hash starts. There must be HASH_BYTES bytes available.
+   */
+  public void hashInto(int num, Transaction t, Hash prevHash, long nonce, byte[] out,
+      int offset) {
+    Block.updatePrefix(md, scratch, num, t, prevHash);
+    Block.putLong(scratch, 0, nonce);
+    md.update(scratch, 0, Long.BYTES);
+    try {
+      md.digest(out, offset, HASH_BYTES);
+    } catch (DigestException e) {
+      md.reset();
+      throw new IllegalArgumentException("No room for hash at `" + offset + "`", e);
+    } // try/catch
+  } // hashInto(int, Transaction, Hash, long, byte[], int)
+
+  /**
+   * Compute the hash of a block into a buffer.
+   *
+   * @param blk The block to hash.
+   * @param out Where to put the hash.
+   * @param offset Where in out the hash starts. There must be HASH_BYTES bytes available.
+   */
+  public void hashInto(Block blk, byte[] out, int offset) {
+    hashInto(blk.getNum(), blk.getTransaction(), blk.getPrevHash(), blk.getNonce(), out, offset);
+  } // hashInto(Block, byte[], int)
+} // class BlockHasher
@@ -0,0 +1,117 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator for a range of heights in a view of a chain. Views never change and give any
+ * block by height, so we know the exact size of every range and split one by halving it, which
+ * lets parallel streams spread the blocks evenly over every processor.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class BlockSpliterator implements Spliterator<Block> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The fewest blocks we bother to split off. */
+  static final int MIN_SPLIT = 64;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The blocks. */
+  private final BlockStorage.View blocks;
+
+  /** The height of the next block. */
+  private int from;
+
+  /** The height just past the last block. */
+  private final int to;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator for a range of heights.
+   *
+   * @param blocks1 The blocks.
+   * @param from1 The height of the first block.
+   * @param to1 The height just past the last block, which must be no more than the number of
+   *        blocks.
+   */
+  BlockSpliterator(BlockStorage.View blocks1, int from1, int to1) {
+    this.blocks = blocks1;
+    this.from = from1;
+    this.to = to1;
+  } // BlockSpliterator(BlockStorage.View, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Pass the next block to an action, if there is one.
+   *
+   * @param action What to do with the block.
+   *
+   * @return true if there was a block, false otherwise.
+   */
+  public boolean tryAdvance(Consumer<? super Block> action) {
+    if (this.from >= this.to) {
+      return false;
+    } // if
+    action.accept(blocks.get(this.from++));
+    return true;
+  } // tryAdvance(Consumer)
+
+  /**
+   * Pass each remaining block to an action.
+   *
+   * @param action What to do with the blocks.
+   */
+  public void forEachRemaining(Consumer<? super Block> action) {
+    int end = this.to;
+    for (int height = this.from; height < end; height++) {
+      action.accept(blocks.get(height));
+    } // for
+    this.from = end;
+  } // forEachRemaining(Consumer)
+
+  /**
+   * Split off the first half of the remaining blocks.
+   *
+   * @return a spliterator for those blocks, or null if too few remain to split.
+   */
+  public Spliterator<Block> trySplit() {
+    int mid = (this.from + this.to) >>> 1;
+    if (mid - this.from < MIN_SPLIT) {
+      return null;
+    } // if
+    BlockSpliterator prefix = new BlockSpliterator(blocks, this.from, mid);
+    this.from = mid;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Get the number of blocks remaining.
+   *
+   * @return that number.
+   */
+  public long estimateSize() {
+    return this.to - this.from;
+  } // estimateSize()
+
+  /**
+   * Describe the blocks: their order and number are fixed and none is null.
+   *
+   * @return the characteristics.
+   */
+  public int characteristics() {
+    return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+  } // characteristics()
+} // class BlockSpliterator
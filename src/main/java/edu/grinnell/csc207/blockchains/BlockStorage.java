@@ -0,0 +1,185 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+/**
+ * Places that keep the blocks of a chain, indexed by height (the genesis block is at height 0).
+ * Blocks are only ever added or removed at the end.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public interface BlockStorage extends Iterable<Block>, Closeable {
+  /**
+   * The blocks of a storage as they were at one moment. Views may be read from any thread, and
+   * adding and removing blocks afterwards does not change what a view holds.
+   */
+  interface View extends Iterable<Block> {
+    /**
+     * Get the number of blocks in the view.
+     *
+     * @return the number of blocks.
+     */
+    int size();
+
+    /**
+     * Get the block at a given height.
+     *
+     * @param height The height of the block, between 0 (inclusive) and size() (exclusive).
+     *
+     * @return that block.
+     *
+     * @throws IndexOutOfBoundsException if the view has no block at that height.
+     */
+    Block get(int height);
+
+    /**
+     * Iterate a range of blocks in order of height.
+     *
+     * @param from The height of the first block.
+     * @param to The height just past the last block. May be larger than size().
+     *
+     * @return an iterator for those blocks.
+     */
+    default Iterator<Block> iterator(int from, int to) {
+      if (from < 0) {
+        throw new IndexOutOfBoundsException(from);
+      } // if
+      int end = Math.min(to, size());
+      return new Iterator<Block>() {
+        private int height = from;
+
+        public boolean hasNext() {
+          return this.height < end;
+        } // hasNext()
+
+        public Block next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          } // if
+          return get(this.height++);
+        } // next()
+      };
+    } // iterator(int, int)
+
+    /**
+     * Iterate the blocks in order of height.
+     *
+     * @return an iterator for all the blocks.
+     */
+    default Iterator<Block> iterator() {
+      return iterator(0, Integer.MAX_VALUE);
+    } // iterator()
+
+    /**
+     * Get a spliterator for the blocks that splits by height.
+     *
+     * @return the spliterator.
+     */
+    default Spliterator<Block> spliterator() {
+      return new BlockSpliterator(this, 0, size());
+    } // spliterator()
+  } // interface View
+
+  /**
+   * Get the number of blocks stored.
+   *
+   * @return the number of blocks.
+   */
+  int size();
+
+  /**
+   * Get the block at a given height.
+   *
+   * @param height The height of the block, between 0 (inclusive) and size() (exclusive).
+   *
+   * @return that block.
+   *
+   * @throws IndexOutOfBoundsException if there is no block at that height.
+   */
+  Block get(int height);
+
+  /**
+   * Get the last block. Repeated calls return the same object until the end changes.
+   *
+   * @return the last block.
+   *
+   * @throws java.util.NoSuchElementException if the storage is empty.
+   */
+  Block last();
+
+  /**
+   * Add a block after the last one.
+   *
+   * @param blk The block to add.
+   */
+  void add(Block blk);
+
+  /**
+   * Remove the last block.
+   *
+   * @return the block removed.
+   *
+   * @throws java.util.NoSuchElementException if the storage is empty.
+   */
+  Block removeLast();
+
+  /**
+   * Iterate a range of blocks in order of height. The iterator stops early if blocks are removed
+   * from the range while it runs.
+   *
+   * @param from The height of the first block.
+   * @param to The height just past the last block. May be larger than size().
+   *
+   * @return an iterator for those blocks.
+   */
+  Iterator<Block> iterator(int from, int to);
+
+  /**
+   * Iterate the blocks in order of height.
+   *
+   * @return an iterator for all the blocks.
+   */
+  default Iterator<Block> iterator() {
+    return iterator(0, Integer.MAX_VALUE);
+  } // iterator()
+
+  /**
+   * Get a view of the blocks stored now. Only the thread that adds and removes blocks should
+   * call this. By default the view reads through to the storage, so it fails on blocks removed
+   * after it was made; storage that can do better keeps them.
+   *
+   * @return the view.
+   */
+  default View view() {
+    int size = size();
+    return new View() {
+      public int size() {
+        return size;
+      } // size()
+
+      public Block get(int height) {
+        if (height >= size) {
+          throw new IndexOutOfBoundsException(height);
+        } // if
+        return BlockStorage.this.get(height);
+      } // get(int)
+    };
+  } // view()
+
+  /**
+   * Make sure everything stored so far would survive a crash. Does nothing for storage that
+   * lives only in memory.
+   */
+  default void sync() {
+  } // sync()
+
+  /**
+   * Release any files or other resources. Does nothing for storage that lives only in memory.
+   */
+  default void close() {
+  } // close()
+} // interface BlockStorage
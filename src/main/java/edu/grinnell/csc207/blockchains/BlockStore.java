@@ -0,0 +1,192 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The blocks of a chain, kept in memory. Blocks live in fixed-size segments reached through a
+ * directory, so adding a block never copies the ones already stored, and getting, adding, or
+ * removing the last block takes constant time.
+ *
+ * Views share the segments with the store. Slots a view can see are never written again in
+ * place; to replace a removed block that some view saw, we first copy its segment.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class BlockStore implements BlockStorage {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** log2 of the number of blocks in a segment. */
+  static final int SEGMENT_BITS = 10;
+
+  /** The number of blocks in a segment. */
+  static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+  /** Mask for the position of a block within its segment. */
+  static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The segments. Those past the last block may be null. */
+  private Block[][] segments = new Block[4][];
+
+  /** The number of blocks stored. */
+  private int size = 0;
+
+  /** The most blocks any view has held. Views may be reading the slots below this. */
+  private int shared = 0;
+
+  /** The segment we copied or allocated since the last view, or -1 if none. */
+  private int owned = -1;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of blocks stored.
+   *
+   * @return the number of blocks.
+   */
+  public int size() {
+    return this.size;
+  } // size()
+
+  /**
+   * Get the block at a given height.
+   *
+   * @param height The height of the block, between 0 (inclusive) and size() (exclusive).
+   *
+   * @return that block.
+   *
+   * @throws IndexOutOfBoundsException if there is no block at that height.
+   */
+  public Block get(int height) {
+    if (height < 0 || height >= this.size) {
+      throw new IndexOutOfBoundsException(height);
+    } // if
+    return segments[height >>> SEGMENT_BITS][height & SEGMENT_MASK];
+  } // get(int)
+
+  /**
+   * Get the last block.
+   *
+   * @return the last block.
+   *
+   * @throws NoSuchElementException if the store is empty.
+   */
+  public Block last() {
+    if (this.size == 0) {
+      throw new NoSuchElementException();
+    } // if
+    return get(this.size - 1);
+  } // last()
+
+  /**
+   * Add a block after the last one.
+   *
+   * @param blk The block to add.
+   */
+  public void add(Block blk) {
+    int seg = this.size >>> SEGMENT_BITS;
+    if (seg == segments.length) {
+      segments = Arrays.copyOf(segments, segments.length * 2);
+    } // if
+    if (segments[seg] == null) {
+      segments[seg] = new Block[SEGMENT_SIZE];
+      owned = seg;
+    } else if (this.size < shared && seg != owned) {
+      // A view may see the old block here, so write into a copy.
+      segments = segments.clone();
+      segments[seg] = segments[seg].clone();
+      owned = seg;
+    } // if
+    segments[seg][this.size & SEGMENT_MASK] = blk;
+    this.size++;
+  } // add(Block)
+
+  /**
+   * Remove the last block.
+   *
+   * @return the block removed.
+   *
+   * @throws NoSuchElementException if the store is empty.
+   */
+  public Block removeLast() {
+    Block blk = last();
+    this.size--;
+    if (this.size >= shared) {
+      segments[this.size >>> SEGMENT_BITS][this.size & SEGMENT_MASK] = null;
+    } // if
+    // Keep one spare segment so that removing and appending around a boundary does not
+    // reallocate, but let the rest go.
+    int spare = (this.size >>> SEGMENT_BITS) + 2;
+    if (spare < segments.length && segments[spare] != null) {
+      if ((spare << SEGMENT_BITS) < shared) {
+        segments = segments.clone();
+      } // if
+      segments[spare] = null;
+    } // if
+    return blk;
+  } // removeLast()
+
+  /**
+   * Get a view of the blocks stored now. Later changes to the store copy what they would
+   * otherwise overwrite, so the view never changes.
+   *
+   * @return the view.
+   */
+  public BlockStorage.View view() {
+    Block[][] dir = this.segments;
+    int count = this.size;
+    shared = Math.max(shared, count);
+    owned = -1;
+    return new BlockStorage.View() {
+      public int size() {
+        return count;
+      } // size()
+
+      public Block get(int height) {
+        if (height < 0 || height >= count) {
+          throw new IndexOutOfBoundsException(height);
+        } // if
+        return dir[height >>> SEGMENT_BITS][height & SEGMENT_MASK];
+      } // get(int)
+    };
+  } // view()
+
+  /**
+   * Iterate a range of blocks in order of height. The iterator stops early if blocks are removed
+   * from the range while it runs.
+   *
+   * @param from The height of the first block.
+   * @param to The height just past the last block. May be larger than size().
+   *
+   * @return an iterator for those blocks.
+   */
+  public Iterator<Block> iterator(int from, int to) {
+    if (from < 0) {
+      throw new IndexOutOfBoundsException(from);
+    } // if
+    return new Iterator<Block>() {
+      private int height = from;
+
+      public boolean hasNext() {
+        return this.height < to && this.height < BlockStore.this.size;
+      } // hasNext()
+
+      public Block next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        return get(this.height++);
+      } // next()
+    };
+  } // iterator(int, int)
+} // class BlockStore
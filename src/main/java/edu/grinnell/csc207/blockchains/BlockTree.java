@@ -0,0 +1,214 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A blockchain that also holds competing branches. Blocks may follow any block we know, not
+ * just the last one. The longest branch is the main chain, which a BlockChain keeps; the blocks
+ * of the other branches wait on the side, indexed by hash. When a side branch grows longer than
+ * the main chain, we switch to it by removing blocks from the main chain back to where the
+ * branches fork and appending the branch, in one change to the chain. Each removal undoes one
+ * transaction in the ledger, so the work depends on how far back the fork is rather than on
+ * the length of the chain. Ties go to the branch we saw first.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class BlockTree {
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * A block that is not on the main chain.
+   */
+  private static class SideBlock {
+    /** The block. */
+    Block block;
+
+    /** The height the block would have on the main chain. */
+    int height;
+
+    /**
+     * Create a side block.
+     *
+     * @param block1 The block.
+     * @param height1 Its height.
+     */
+    SideBlock(Block block1, int height1) {
+      this.block = block1;
+      this.height = height1;
+    } // SideBlock(Block, int)
+  } // class SideBlock
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The main chain. */
+  private BlockChain chain;
+
+  /** The blocks not on the main chain, by hash. */
+  private HashMap<Hash, SideBlock> side = new HashMap<Hash, SideBlock>();
+
+  /** The number of blocks removed from the main chain by the last switch of branches. */
+  private int lastReorgDepth = 0;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a tree whose main chain starts as the given chain.
+   *
+   * @param chain1 The main chain. Once the tree has it, only the tree should add blocks to it
+   *        or remove them.
+   */
+  public BlockTree(BlockChain chain1) {
+    this.chain = chain1;
+  } // BlockTree(BlockChain)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Find the height of a block we know, on either the main chain or a side branch.
+   *
+   * @param hash The hash of the block.
+   *
+   * @return its height, or -1 if we do not know it.
+   */
+  int heightOf(Hash hash) {
+    SideBlock sb = side.get(hash);
+    return (sb != null) ? sb.height : chain.getHeight(hash);
+  } // heightOf(Hash)
+
+  /**
+   * Make the branch that ends in a side block the main chain.
+   *
+   * @param tip The last block of the branch.
+   */
+  void reorganize(SideBlock tip) {
+    ArrayList<Block> branch = new ArrayList<Block>();
+    Hash forkHash = null;
+    for (SideBlock sb = tip; sb != null; sb = side.get(forkHash)) {
+      branch.add(sb.block);
+      forkHash = sb.block.getPrevHash();
+    } // for
+    Collections.reverse(branch);
+    int fork = chain.getHeight(forkHash);
+    if (fork < 0) {
+      throw new IllegalStateException("Branch does not meet the main chain");
+    } // if
+
+    List<Block> removed = chain.replaceAfter(fork, branch);
+    for (Block blk : branch) {
+      side.remove(blk.getHash());
+    } // for
+    for (int i = 0; i < removed.size(); i++) {
+      Block blk = removed.get(i);
+      side.put(blk.getHash(), new SideBlock(blk, fork + removed.size() - i));
+    } // for
+    this.lastReorgDepth = removed.size();
+  } // reorganize(SideBlock)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add a block after any block we know. If that makes its branch the longest, the branch
+   * becomes the main chain.
+   *
+   * @param blk The block to add.
+   *
+   * @return true if the block is now on the main chain, false if it waits on a side branch.
+   *
+   * @throws IllegalArgumentException if (a) the hash is not valid, (b) the hash is not
+   *         appropriate for the contents, (c) we do not know the previous block, or (d) the
+   *         block is just the header of a block with a payload. If the block would make its
+   *         branch the longest but the branch is wrong, we forget the block.
+   */
+  public synchronized boolean add(Block blk) throws IllegalArgumentException {
+    if (blk.getPrevHash() == null) {
+      throw new IllegalArgumentException("Unknown previous block.");
+    } // if
+    if (blk.getPrevHash().equals(chain.getHash())) {
+      chain.append(blk);
+      return true;
+    } // if
+
+    if (!chain.check.isValid(blk.getHash())) {
+      throw new IllegalArgumentException("Fails validator: `" + blk.getNonce() + "`");
+    } // if
+    if (!blk.getHash().equals(blk.computeHash())) {
+      throw new IllegalArgumentException("Hashes inequal.");
+    } // if
+    if (blk.isHeaderOnly()) {
+      throw new IllegalArgumentException("Header without its transactions.");
+    } // if
+    if (contains(blk.getHash())) {
+      return chain.contains(blk.getHash());
+    } // if
+    int parent = heightOf(blk.getPrevHash());
+    if (parent < 0) {
+      throw new IllegalArgumentException("Unknown previous block.");
+    } // if
+
+    SideBlock sb = new SideBlock(blk, parent + 1);
+    side.put(blk.getHash(), sb);
+    if (sb.height >= chain.getSize()) {
+      try {
+        reorganize(sb);
+      } catch (RuntimeException e) {
+        // The chain is as it was; forget the block, so nothing builds on a branch that failed.
+        side.remove(blk.getHash());
+        throw e;
+      } // try/catch
+      return true;
+    } // if
+    return false;
+  } // add(Block)
+
+  /**
+   * Get the main chain.
+   *
+   * @return the main chain.
+   */
+  public BlockChain getChain() {
+    return this.chain;
+  } // getChain()
+
+  /**
+   * Determine whether we know a block, on the main chain or a side branch.
+   *
+   * @param hash The hash of the block.
+   *
+   * @return true if we know it, false otherwise.
+   */
+  public synchronized boolean contains(Hash hash) {
+    return side.containsKey(hash) || chain.contains(hash);
+  } // contains(Hash)
+
+  /**
+   * Get the number of blocks on side branches.
+   *
+   * @return the number of blocks off the main chain.
+   */
+  public synchronized int getSideCount() {
+    return side.size();
+  } // getSideCount()
+
+  /**
+   * Get the number of blocks the last switch of branches removed from the main chain.
+   *
+   * @return the depth of the last fork we switched at, or 0 if we never switched.
+   */
+  public synchronized int getLastReorgDepth() {
+    return this.lastReorgDepth;
+  } // getLastReorgDepth()
+} // class BlockTree
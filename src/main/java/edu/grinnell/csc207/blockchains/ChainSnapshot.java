@@ -0,0 +1,196 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A blockchain as it was just after one change. Snapshots never change, so any number of
+ * threads may read one while blocks are added to or removed from the chain, and reading never
+ * waits for the writer.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class ChainSnapshot implements Iterable<Transaction> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The blocks. */
+  private final BlockStorage.View blocks;
+
+  /** The last block. */
+  private final Block tip;
+
+  /** The number of changes made to the chain before this snapshot. */
+  private final long version;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a snapshot of some blocks.
+   *
+   * @param blocks1 The blocks, of which there must be at least one.
+   * @param version1 The number of changes made to the chain so far.
+   */
+  ChainSnapshot(BlockStorage.View blocks1, long version1) {
+    this.blocks = blocks1;
+    this.tip = blocks1.get(blocks1.size() - 1);
+    this.version = version1;
+  } // ChainSnapshot(BlockStorage.View, long)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of blocks, including the initial block.
+   *
+   * @return the number of blocks.
+   */
+  public int getSize() {
+    return blocks.size();
+  } // getSize()
+
+  /**
+   * Get the last block.
+   *
+   * @return the last block.
+   */
+  public Block getTip() {
+    return this.tip;
+  } // getTip()
+
+  /**
+   * Get the hash of the last block.
+   *
+   * @return that hash.
+   */
+  public Hash getHash() {
+    return this.tip.getHash();
+  } // getHash()
+
+  /**
+   * Get the number of changes made to the chain before this snapshot. Each append or removal
+   * counts as one, so two snapshots with the same version have the same blocks. Balances are
+   * not part of a snapshot; the chain's balanceAt at the height of the last block gives the
+   * balances that go with it.
+   *
+   * @return the version.
+   */
+  public long getVersion() {
+    return this.version;
+  } // getVersion()
+
+  /**
+   * Get the block at a given height. The initial block is at height 0.
+   *
+   * @param height The height of the block.
+   *
+   * @return that block.
+   *
+   * @throws IndexOutOfBoundsException if the snapshot has no block at that height.
+   */
+  public Block getBlock(int height) {
+    return blocks.get(height);
+  } // getBlock(int)
+
+  /**
+   * Get the blocks.
+   *
+   * @return the view of the blocks.
+   */
+  BlockStorage.View getBlocks() {
+    return this.blocks;
+  } // getBlocks()
+
+  /**
+   * Get the first node.
+   *
+   * @return the first node.
+   */
+  public Node getFront() {
+    return new Node(blocks, 0);
+  } // getFront()
+
+  /**
+   * Get the last node.
+   *
+   * @return the last node.
+   */
+  public Node getBack() {
+    return new Node(blocks, blocks.size() - 1);
+  } // getBack()
+
+  /**
+   * Get an iterator for all the blocks.
+   *
+   * @return an iterator for all the blocks.
+   */
+  public Iterator<Block> blocks() {
+    return blocks.iterator();
+  } // blocks()
+
+  /**
+   * Get an iterator for the blocks in a range of heights.
+   *
+   * @param from The height of the first block.
+   * @param to The height just past the last block.
+   *
+   * @return an iterator for those blocks.
+   */
+  public Iterator<Block> blocks(int from, int to) {
+    return blocks.iterator(from, to);
+  } // blocks(int, int)
+
+  /**
+   * Get a stream of the blocks in order of height. Parallel streams split the blocks by height.
+   *
+   * @return the stream.
+   */
+  public Stream<Block> blockStream() {
+    return StreamSupport.stream(blocks.spliterator(), false);
+  } // blockStream()
+
+  /**
+   * Get a stream of the transactions in order of height. Parallel streams split the blocks by
+   * height.
+   *
+   * @return the stream.
+   */
+  public Stream<Transaction> transactionStream() {
+    return blockStream().flatMap((blk) -> blk.getTransactions().stream());
+  } // transactionStream()
+
+  /**
+   * Get an iterator for all the transactions.
+   *
+   * @return an iterator for all the transactions.
+   */
+  public Iterator<Transaction> iterator() {
+    return new Iterator<Transaction>() {
+      private Iterator<Block> iter = blocks.iterator();
+
+      private Iterator<Transaction> current = Collections.emptyIterator();
+
+      public boolean hasNext() {
+        while (!this.current.hasNext() && this.iter.hasNext()) {
+          this.current = this.iter.next().getTransactions().iterator();
+        } // while
+        return this.current.hasNext();
+      } // hasNext()
+
+      public Transaction next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        return this.current.next();
+      } // next()
+    };
+  } // iterator()
+} // class ChainSnapshot
@@ -0,0 +1,147 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Validators that accept hashes starting with a given number of zero bits. Counting bits rather
+ * than bytes lets difficulty go up by a factor of two at a time instead of 256. We check the hash
+ * eight bytes at a time, comparing whole words with zero and the last partial word with a mask.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class DifficultyValidator implements RawHashValidator {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** Reads big-endian longs out of byte arrays. */
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The number of leading zero bits required. */
+  private int bits;
+
+  /** The number of leading words that must be all zero. */
+  private int fullWords;
+
+  /** The bits that must be zero in the word after those, or 0 if there are none. */
+  private long mask;
+
+  /** The number of bytes a hash needs to have enough leading bits. */
+  private int bytes;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a validator that requires the given number of leading zero bits.
+   *
+   * @param bits1 The number of bits, between 0 and 256.
+   *
+   * @throws IllegalArgumentException if bits1 is out of range.
+   */
+  public DifficultyValidator(int bits1) {
+    if (bits1 < 0 || bits1 > BlockHasher.HASH_BYTES * Byte.SIZE) {
+      throw new IllegalArgumentException("Invalid difficulty: `" + bits1 + "`");
+    } // if
+    this.bits = bits1;
+    this.fullWords = bits1 / Long.SIZE;
+    int rest = bits1 % Long.SIZE;
+    this.mask = (rest == 0) ? 0 : -1L << (Long.SIZE - rest);
+    this.bytes = (bits1 + Byte.SIZE - 1) / Byte.SIZE;
+  } // DifficultyValidator(int)
+
+  /**
+   * Create a validator that requires the given number of leading zero bits.
+   *
+   * @param bits The number of bits, between 0 and 256.
+   *
+   * @return the validator.
+   */
+  public static DifficultyValidator leadingZeroBits(int bits) {
+    return new DifficultyValidator(bits);
+  } // leadingZeroBits(int)
+
+  /**
+   * Create a validator that requires the given number of leading zero bytes.
+   *
+   * @param bytes The number of bytes, between 0 and 32.
+   *
+   * @return the validator.
+   */
+  public static DifficultyValidator leadingZeroBytes(int bytes) {
+    return new DifficultyValidator(bytes * Byte.SIZE);
+  } // leadingZeroBytes(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of leading zero bits required.
+   *
+   * @return the number of bits.
+   */
+  public int getBits() {
+    return this.bits;
+  } // getBits()
+
+  /**
+   * Determine if a hash starts with enough zero bits. Hashes too short to have that many bits
+   * are invalid.
+   *
+   * @param hash The hash we're checking.
+   *
+   * @return true if the hash is valid and false otherwise.
+   */
+  public boolean isValid(Hash hash) {
+    byte[] contents = hash.contents;
+    if (contents.length >= BlockHasher.HASH_BYTES) {
+      return isValid(contents, 0);
+    } else if (contents.length < bytes) {
+      return false;
+    } // if
+    // A short hash: go a byte at a time.
+    for (int i = 0; i < bits / Byte.SIZE; i++) {
+      if (contents[i] != 0) {
+        return false;
+      } // if
+    } // for
+    int rest = bits % Byte.SIZE;
+    return rest == 0 || (contents[bits / Byte.SIZE] & (0xff00 >>> rest)) == 0;
+  } // isValid(Hash)
+
+  /**
+   * Determine if a 32-byte hash starts with enough zero bits.
+   *
+   * @param hash The array holding the hash.
+   * @param offset Where the hash starts in that array.
+   *
+   * @return true if the hash is valid and false otherwise.
+   */
+  public boolean isValid(byte[] hash, int offset) {
+    for (int i = 0; i < fullWords; i++) {
+      if ((long) LONGS.get(hash, offset + i * Long.BYTES) != 0) {
+        return false;
+      } // if
+    } // for
+    return mask == 0 || ((long) LONGS.get(hash, offset + fullWords * Long.BYTES) & mask) == 0;
+  } // isValid(byte[], int)
+
+  /**
+   * Get a string representation of the validator.
+   *
+   * @return a string representation of the validator.
+   */
+  public String toString() {
+    return "DifficultyValidator(" + bits + " bits)";
+  } // toString()
+} // class DifficultyValidator
@@ -14,9 +14,15 @@ public class Hash {
   // | Fields |
   // +--------+
 
+  /** Hex digits, indexed by value. */
+  static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
   /** The contents of the hash. */
   byte[] contents;
 
+  /** The hash code, or 0 if not yet computed. */
+  private int code = 0;
+
   // +--------------+------------------------------------------------
   // | Constructors |
   // +--------------+
@@ -33,6 +39,28 @@ public class Hash {
     } // for
   } // Hash(byte[])
 
+  /**
+   * Create a new encapsulated hash that may share its data.
+   *
+   * @param data The contents of the hash.
+   * @param copy Whether to copy the data.
+   */
+  private Hash(byte[] data, boolean copy) {
+    this.contents = copy ? data.clone() : data;
+  } // Hash(byte[], boolean)
+
+  /**
+   * Create a hash that uses the given array as its contents rather than a copy. Only for arrays
+   * that will not change while the hash is in use, such as a freshly computed digest.
+   *
+   * @param data The contents of the hash.
+   *
+   * @return the new hash.
+   */
+  static Hash wrap(byte[] data) {
+    return new Hash(data, false);
+  } // wrap(byte[])
+
   // +---------+-----------------------------------------------------
   // | Methods |
   // +---------+
@@ -76,11 +104,12 @@ public class Hash {
    * @return the hash as a hex string.
    */
   public String toString() {
-    StringBuilder str = new StringBuilder();
-    for (int i = 0; i < this.length(); i++) {
-      str.append(String.format("%02X", Byte.toUnsignedInt(this.contents[i])));
+    char[] str = new char[this.contents.length * 2];
+    for (int i = 0; i < this.contents.length; i++) {
+      str[2 * i] = HEX[(this.contents[i] >> 4) & 0xf];
+      str[2 * i + 1] = HEX[this.contents[i] & 0xf];
     } // for
-    return str.toString();
+    return new String(str);
   } // toString()
 
   /**
@@ -100,11 +129,14 @@ public class Hash {
   } // equals(Object)
 
   /**
-   * Get the hash code of this object.
+   * Get the hash code of this object. We compute it once and remember it.
    *
    * @return the hash code.
    */
   public int hashCode() {
-    return this.toString().hashCode();
+    if (this.code == 0) {
+      this.code = Arrays.hashCode(this.contents);
+    } // if
+    return this.code;
   } // hashCode()
 } // class Hash
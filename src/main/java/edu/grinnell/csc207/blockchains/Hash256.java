@@ -0,0 +1,235 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Compact 32-byte hashes, such as SHA-256 block hashes, stored as four longs rather than an
+ * array. They are immutable, so the hash code is computed once, equality compares four words,
+ * and nothing needs to be copied to keep the contents safe. Convert to and from Hash with
+ * toHash() and of(Hash).
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public final class Hash256 {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The number of bytes in the hash. */
+  public static final int BYTES = 32;
+
+  /** Reads and writes big-endian longs in byte arrays. */
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** Bytes 0 through 7. */
+  private final long w0;
+
+  /** Bytes 8 through 15. */
+  private final long w1;
+
+  /** Bytes 16 through 23. */
+  private final long w2;
+
+  /** Bytes 24 through 31. */
+  private final long w3;
+
+  /** The hash code. */
+  private final int code;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a hash from its four words, most significant first.
+   *
+   * @param w0a Bytes 0 through 7.
+   * @param w1a Bytes 8 through 15.
+   * @param w2a Bytes 16 through 23.
+   * @param w3a Bytes 24 through 31.
+   */
+  public Hash256(long w0a, long w1a, long w2a, long w3a) {
+    this.w0 = w0a;
+    this.w1 = w1a;
+    this.w2 = w2a;
+    this.w3 = w3a;
+    // The bytes of a cryptographic hash are already well mixed, except that mined hashes start
+    // with zeros, so we take the code from the last word.
+    this.code = (int) (w3a ^ (w3a >>> 32));
+  } // Hash256(long, long, long, long)
+
+  /**
+   * Create a hash from 32 bytes of an array.
+   *
+   * @param bytes The array.
+   * @param offset Where the hash starts.
+   *
+   * @return the new hash.
+   */
+  public static Hash256 of(byte[] bytes, int offset) {
+    return new Hash256((long) LONGS.get(bytes, offset), (long) LONGS.get(bytes, offset + 8),
+        (long) LONGS.get(bytes, offset + 16), (long) LONGS.get(bytes, offset + 24));
+  } // of(byte[], int)
+
+  /**
+   * Create a compact copy of a 32-byte Hash.
+   *
+   * @param hash The hash to copy.
+   *
+   * @return the new hash.
+   *
+   * @throws IllegalArgumentException if the hash is not 32 bytes long.
+   */
+  public static Hash256 of(Hash hash) {
+    if (hash.length() != BYTES) {
+      throw new IllegalArgumentException("Not a 32-byte hash: `" + hash + "`");
+    } // if
+    return of(hash.contents, 0);
+  } // of(Hash)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Determine how many bytes are in the hash.
+   *
+   * @return 32.
+   */
+  public int length() {
+    return BYTES;
+  } // length()
+
+  /**
+   * Get the ith byte.
+   *
+   * @param i The index of the byte to get, between 0 (inclusive) and 32 (exclusive).
+   *
+   * @return the ith byte
+   */
+  public byte get(int i) {
+    if (i < 0 || i >= BYTES) {
+      throw new IndexOutOfBoundsException(i);
+    } // if
+    return (byte) (word(i / Long.BYTES) >>> (Byte.SIZE * (Long.BYTES - 1 - i % Long.BYTES)));
+  } // get(int)
+
+  /**
+   * Get one of the four words of the hash.
+   *
+   * @param i Which word, between 0 (most significant) and 3.
+   *
+   * @return that word.
+   */
+  public long word(int i) {
+    switch (i) {
+      case 0:
+        return w0;
+      case 1:
+        return w1;
+      case 2:
+        return w2;
+      case 3:
+        return w3;
+      default:
+        throw new IndexOutOfBoundsException(i);
+    } // switch
+  } // word(int)
+
+  /**
+   * Write the bytes of the hash into an array.
+   *
+   * @param out Where to write them.
+   * @param offset Where the first byte goes. There must be 32 bytes available.
+   */
+  public void writeTo(byte[] out, int offset) {
+    LONGS.set(out, offset, w0);
+    LONGS.set(out, offset + 8, w1);
+    LONGS.set(out, offset + 16, w2);
+    LONGS.set(out, offset + 24, w3);
+  } // writeTo(byte[], int)
+
+  /**
+   * Get a copy of the bytes in the hash.
+   *
+   * @return a new array holding the bytes.
+   */
+  public byte[] getBytes() {
+    byte[] result = new byte[BYTES];
+    writeTo(result, 0);
+    return result;
+  } // getBytes()
+
+  /**
+   * Convert to a Hash.
+   *
+   * @return an equivalent Hash.
+   */
+  public Hash toHash() {
+    return Hash.wrap(getBytes());
+  } // toHash()
+
+  /**
+   * Determine if this holds the same bytes as a Hash.
+   *
+   * @param hash The Hash to compare to.
+   *
+   * @return true if the hash is 32 bytes long and they are the same bytes.
+   */
+  public boolean matches(Hash hash) {
+    byte[] bytes = hash.contents;
+    return bytes.length == BYTES && (long) LONGS.get(bytes, 0) == w0
+        && (long) LONGS.get(bytes, 8) == w1 && (long) LONGS.get(bytes, 16) == w2
+        && (long) LONGS.get(bytes, 24) == w3;
+  } // matches(Hash)
+
+  /**
+   * Convert to a hex string, as Hash does.
+   *
+   * @return the hash as a hex string.
+   */
+  public String toString() {
+    char[] str = new char[BYTES * 2];
+    for (int w = 0; w < BYTES / Long.BYTES; w++) {
+      long word = word(w);
+      for (int i = Long.BYTES * 2 - 1; i >= 0; i--) {
+        str[w * Long.BYTES * 2 + i] = Hash.HEX[(int) (word & 0xf)];
+        word >>>= 4;
+      } // for
+    } // for
+    return new String(str);
+  } // toString()
+
+  /**
+   * Determine if this is equal to another object.
+   *
+   * @param other The object to compare to.
+   *
+   * @return true if other is a Hash256 with the same bytes.
+   */
+  public boolean equals(Object other) {
+    if (other instanceof Hash256) {
+      Hash256 o = (Hash256) other;
+      return o.w0 == this.w0 && o.w1 == this.w1 && o.w2 == this.w2 && o.w3 == this.w3;
+    } else {
+      return false;
+    } // if
+  } // equals(Object)
+
+  /**
+   * Get the hash code of this object.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return this.code;
+  } // hashCode()
+} // class Hash256
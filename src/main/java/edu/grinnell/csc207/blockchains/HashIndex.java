@@ -0,0 +1,207 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Arrays;
+
+/**
+ * An index from block hashes to heights in a block store. To keep it small, we store only eight
+ * bytes of each hash along with the height, in an open-addressing table; when two hashes share
+ * those bytes we compare the full hashes of the blocks in the store.
+ *
+ * We key on the last bytes of the hash, since validators often require the first ones to be
+ * zero.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class HashIndex {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The smallest table we make. */
+  static final int MIN_CAPACITY = 16;
+
+  /** Multiplier used to spread keys over the table. */
+  static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The blocks whose hashes we index. */
+  private BlockStorage store;
+
+  /** The keys of the entries. */
+  private long[] keys = new long[MIN_CAPACITY];
+
+  /** The heights of the entries plus one, or 0 for empty slots. */
+  private int[] heights = new int[MIN_CAPACITY];
+
+  /** The number of entries. */
+  private int size = 0;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty index of the blocks in a store.
+   *
+   * @param store1 The store that holds the blocks.
+   */
+  public HashIndex(BlockStorage store1) {
+    this.store = store1;
+  } // HashIndex(BlockStorage)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get the key for a hash: its last eight bytes, or all of them if there are fewer.
+   *
+   * @param hash The hash.
+   *
+   * @return the key.
+   */
+  static long key(Hash hash) {
+    byte[] bytes = hash.contents;
+    long key = bytes.length;
+    for (int i = Math.max(0, bytes.length - Long.BYTES); i < bytes.length; i++) {
+      key = (key << Byte.SIZE) | (bytes[i] & 0xff);
+    } // for
+    return key;
+  } // key(Hash)
+
+  /**
+   * Get the slot where the search for a key starts.
+   *
+   * @param key The key.
+   * @param mask One less than the size of the table.
+   *
+   * @return the slot.
+   */
+  static int home(long key, int mask) {
+    return (int) ((key * SPREAD) >>> 32) & mask;
+  } // home(long, int)
+
+  /**
+   * Double the size of the table.
+   */
+  void grow() {
+    long[] oldKeys = this.keys;
+    int[] oldHeights = this.heights;
+    this.keys = new long[oldKeys.length * 2];
+    this.heights = new int[oldHeights.length * 2];
+    int mask = this.keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldHeights[i] != 0) {
+        int slot = home(oldKeys[i], mask);
+        while (this.heights[slot] != 0) {
+          slot = (slot + 1) & mask;
+        } // while
+        this.keys[slot] = oldKeys[i];
+        this.heights[slot] = oldHeights[i];
+      } // if
+    } // for
+  } // grow()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of hashes indexed.
+   *
+   * @return the number of hashes.
+   */
+  public int size() {
+    return this.size;
+  } // size()
+
+  /**
+   * Record the hash of the block at a height.
+   *
+   * @param hash The hash of the block.
+   * @param height The height of the block in the store.
+   */
+  public void add(Hash hash, int height) {
+    if (2 * (this.size + 1) > this.keys.length) {
+      grow();
+    } // if
+    long key = key(hash);
+    int mask = this.keys.length - 1;
+    int slot = home(key, mask);
+    while (this.heights[slot] != 0) {
+      slot = (slot + 1) & mask;
+    } // while
+    this.keys[slot] = key;
+    this.heights[slot] = height + 1;
+    this.size++;
+  } // add(Hash, int)
+
+  /**
+   * Find the height of the block with a given hash.
+   *
+   * @param hash The hash to look for.
+   *
+   * @return the height of the block, or -1 if no indexed block has that hash.
+   */
+  public int find(Hash hash) {
+    long key = key(hash);
+    int mask = this.keys.length - 1;
+    for (int slot = home(key, mask); this.heights[slot] != 0; slot = (slot + 1) & mask) {
+      if (this.keys[slot] == key) {
+        int height = this.heights[slot] - 1;
+        if (store.get(height).getHash().equals(hash)) {
+          return height;
+        } // if
+      } // if
+    } // for
+    return -1;
+  } // find(Hash)
+
+  /**
+   * Forget the hash of the block at a height.
+   *
+   * @param hash The hash of the block.
+   * @param height The height of the block.
+   *
+   * @return true if the entry was found and removed, false otherwise.
+   */
+  public boolean remove(Hash hash, int height) {
+    long key = key(hash);
+    int mask = this.keys.length - 1;
+    int slot = home(key, mask);
+    while (this.heights[slot] != 0
+        && (this.keys[slot] != key || this.heights[slot] != height + 1)) {
+      slot = (slot + 1) & mask;
+    } // while
+    if (this.heights[slot] == 0) {
+      return false;
+    } // if
+
+    // Shift later entries of the run back so that searches do not stop at the gap.
+    int gap = slot;
+    for (int i = (gap + 1) & mask; this.heights[i] != 0; i = (i + 1) & mask) {
+      int home = home(this.keys[i], mask);
+      // Move the entry unless its home lies cyclically in (gap, i].
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        this.keys[gap] = this.keys[i];
+        this.heights[gap] = this.heights[i];
+        gap = i;
+      } // if
+    } // for
+    this.heights[gap] = 0;
+    this.size--;
+    return true;
+  } // remove(Hash, int)
+
+  /**
+   * Forget every hash.
+   */
+  public void clear() {
+    Arrays.fill(this.heights, 0);
+    this.size = 0;
+  } // clear()
+} // class HashIndex
@@ -0,0 +1,332 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * A SHA-256 implementation specialized for mining. A block's preimage is always the block
+ * number, source, target, amount, and previous hash followed by an eight-byte nonce, so every
+ * 64-byte chunk before the one holding the nonce is the same for every attempt. We compress those
+ * chunks once, run the rounds of the nonce's chunk that come before the nonce once, and expand
+ * the message schedule of a constant final chunk once. Each nonce then costs the remaining rounds
+ * of one or two compressions, done on ints without going through MessageDigest.
+ *
+ * <p>The hashes are byte-for-byte those of Block.computeHash(). Not safe for use by several
+ * threads at once; give each miner thread its own.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class HeaderHasher implements NonceHasher {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The SHA-256 round constants. */
+  static final int[] K = {
+      0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4,
+      0xab1c5ed5, 0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe,
+      0x9bdc06a7, 0xc19bf174, 0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f,
+      0x4a7484aa, 0x5cb0a9dc, 0x76f988da, 0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7,
+      0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967, 0x27b70a85, 0x2e1b2138, 0x4d2c6dfc,
+      0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85, 0xa2bfe8a1, 0xa81a664b,
+      0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070, 0x19a4c116,
+      0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+      0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7,
+      0xc67178f2};
+
+  /** The SHA-256 initial hash value. */
+  static final int[] H0 = {
+      0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab,
+      0x5be0cd19};
+
+  /** The number of bytes in a SHA-256 chunk. */
+  static final int CHUNK_BYTES = 64;
+
+  /** The number of words in an expanded message schedule. */
+  static final int ROUNDS = 64;
+
+  /** The number of words in a chunk. */
+  static final int CHUNK_WORDS = 16;
+
+  /** The number of ints in a SHA-256 state. */
+  static final int STATE_WORDS = 8;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The state after the chunks before the nonce. */
+  int[] midstate = new int[STATE_WORDS];
+
+  /** The working variables after the rounds of the nonce's chunk that precede the nonce. */
+  int[] preRounds = new int[STATE_WORDS];
+
+  /** The last one or two chunks, padded, with the nonce bytes left for us to fill in. */
+  byte[] tail;
+
+  /** Where the nonce starts in the tail. */
+  int nonceAt;
+
+  /** The first word of the first tail chunk that holds part of the nonce. */
+  int firstNonceWord;
+
+  /** Whether the nonce reaches into the second tail chunk. */
+  boolean nonceInSecond;
+
+  /** The message schedule of the first tail chunk. */
+  private int[] w1 = new int[ROUNDS];
+
+  /** The message schedule of the second tail chunk, if any. */
+  int[] w2 = null;
+
+  /** The working variables for a compression. */
+  private int[] vars = new int[STATE_WORDS];
+
+  /** The state between the two tail chunks. */
+  private int[] state = new int[STATE_WORDS];
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Prepare to hash a block with the given contents.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   */
+  public HeaderHasher(int num, Transaction t, Hash prevHash) {
+    this(prefix(num, t, prevHash));
+  } // HeaderHasher(int, Transaction, Hash)
+
+  /**
+   * Prepare to hash the given bytes followed by an eight-byte nonce.
+   *
+   * @param prefix The bytes that come before the nonce.
+   */
+  public HeaderHasher(byte[] prefix) {
+    int whole = prefix.length / CHUNK_BYTES;
+    System.arraycopy(H0, 0, midstate, 0, STATE_WORDS);
+    int[] w = new int[ROUNDS];
+    for (int c = 0; c < whole; c++) {
+      load(prefix, c * CHUNK_BYTES, w);
+      compress(midstate, w);
+    } // for
+
+    // Lay out the tail: the rest of the prefix, the nonce, the padding, and the bit length.
+    int rest = prefix.length - whole * CHUNK_BYTES;
+    int tailChunks = (rest + Long.BYTES + 1 + Long.BYTES > CHUNK_BYTES) ? 2 : 1;
+    this.tail = new byte[tailChunks * CHUNK_BYTES];
+    System.arraycopy(prefix, whole * CHUNK_BYTES, tail, 0, rest);
+    this.nonceAt = rest;
+    tail[rest + Long.BYTES] = (byte) 0x80;
+    long bits = (prefix.length + (long) Long.BYTES) * Byte.SIZE;
+    Block.putLong(tail, tail.length - Long.BYTES, bits);
+    this.firstNonceWord = rest / Integer.BYTES;
+    this.nonceInSecond = rest + Long.BYTES > CHUNK_BYTES;
+
+    // The rounds before the nonce's first word are the same for every nonce.
+    load(tail, 0, w1);
+    System.arraycopy(midstate, 0, preRounds, 0, STATE_WORDS);
+    rounds(w1, 0, firstNonceWord, preRounds);
+
+    // So is all of the second chunk's schedule, if the nonce stays out of it.
+    if (tailChunks == 2) {
+      this.w2 = new int[ROUNDS];
+      load(tail, CHUNK_BYTES, w2);
+      expand(w2);
+    } // if
+  } // HeaderHasher(byte[])
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Lay out the bytes that come before the nonce, as in Block.updatePrefix.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   *
+   * @return those bytes.
+   */
+  static byte[] prefix(int num, Transaction t, Hash prevHash) {
+    byte[] src = (t.getSource() == null) ? new byte[] {} : t.sourceBytes();
+    byte[] tgt = (t.getTarget() == null) ? new byte[] {} : t.targetBytes();
+    byte[] prev = (prevHash == null) ? new byte[] {} : prevHash.contents;
+    byte[] result = new byte[Integer.BYTES * 2 + src.length + tgt.length + prev.length];
+    int pos = 0;
+    Block.putInt(result, pos, num);
+    pos += Integer.BYTES;
+    System.arraycopy(src, 0, result, pos, src.length);
+    pos += src.length;
+    System.arraycopy(tgt, 0, result, pos, tgt.length);
+    pos += tgt.length;
+    Block.putInt(result, pos, t.getAmount());
+    pos += Integer.BYTES;
+    System.arraycopy(prev, 0, result, pos, prev.length);
+    return result;
+  } // prefix(int, Transaction, Hash)
+
+  /**
+   * Read one chunk as big-endian words.
+   *
+   * @param bytes The bytes to read.
+   * @param offset Where the chunk starts.
+   * @param w Where to put the words.
+   */
+  static void load(byte[] bytes, int offset, int[] w) {
+    for (int i = 0; i < CHUNK_WORDS; i++) {
+      w[i] = word(bytes, offset + i * Integer.BYTES);
+    } // for
+  } // load(byte[], int, int[])
+
+  /**
+   * Read a big-endian word.
+   *
+   * @param bytes The bytes to read.
+   * @param offset Where the word starts.
+   *
+   * @return the word.
+   */
+  static int word(byte[] bytes, int offset) {
+    return (bytes[offset] << 24) | ((bytes[offset + 1] & 0xff) << 16)
+        | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+  } // word(byte[], int)
+
+  /**
+   * Fill in words 16 through 63 of a message schedule.
+   *
+   * @param w The schedule, with the chunk in its first sixteen words.
+   */
+  static void expand(int[] w) {
+    for (int i = CHUNK_WORDS; i < ROUNDS; i++) {
+      int x = w[i - 15];
+      int y = w[i - 2];
+      int s0 = Integer.rotateRight(x, 7) ^ Integer.rotateRight(x, 18) ^ (x >>> 3);
+      int s1 = Integer.rotateRight(y, 17) ^ Integer.rotateRight(y, 19) ^ (y >>> 10);
+      w[i] = w[i - 16] + s0 + w[i - 7] + s1;
+    } // for
+  } // expand(int[])
+
+  /**
+   * Run some of the rounds of a compression.
+   *
+   * @param w The expanded message schedule.
+   * @param from The first round to run.
+   * @param to The round to stop before.
+   * @param v The working variables a through h, updated in place.
+   */
+  static void rounds(int[] w, int from, int to, int[] v) {
+    int a = v[0];
+    int b = v[1];
+    int c = v[2];
+    int d = v[3];
+    int e = v[4];
+    int f = v[5];
+    int g = v[6];
+    int h = v[7];
+    for (int i = from; i < to; i++) {
+      int s1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+      int ch = (e & f) ^ (~e & g);
+      int t1 = h + s1 + ch + K[i] + w[i];
+      int s0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+      int maj = (a & b) ^ (a & c) ^ (b & c);
+      h = g;
+      g = f;
+      f = e;
+      e = d + t1;
+      d = c;
+      c = b;
+      b = a;
+      a = t1 + s0 + maj;
+    } // for
+    v[0] = a;
+    v[1] = b;
+    v[2] = c;
+    v[3] = d;
+    v[4] = e;
+    v[5] = f;
+    v[6] = g;
+    v[7] = h;
+  } // rounds(int[], int, int, int[])
+
+  /**
+   * Compress one chunk into a state.
+   *
+   * @param h The state, updated in place.
+   * @param w The chunk in the first sixteen words; the rest is overwritten.
+   */
+  static void compress(int[] h, int[] w) {
+    expand(w);
+    int[] v = h.clone();
+    rounds(w, 0, ROUNDS, v);
+    for (int i = 0; i < STATE_WORDS; i++) {
+      h[i] += v[i];
+    } // for
+  } // compress(int[], int[])
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Determine if this JVM was started with the Vector API.
+   *
+   * @return true if the jdk.incubator.vector module is present.
+   */
+  public static boolean vectorAvailable() {
+    return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+  } // vectorAvailable()
+
+  /**
+   * Get the fastest specialized hasher this JVM supports: VectorHeaderHasher when the
+   * jdk.incubator.vector module is present (run with --add-modules jdk.incubator.vector), and
+   * HeaderHasher otherwise.
+   *
+   * @return a factory for those hashers.
+   */
+  public static NonceHasher.Factory factory() {
+    if (vectorAvailable()) {
+      return VectorHeaderHasher::new;
+    } // if
+    return HeaderHasher::new;
+  } // factory()
+
+  /**
+   * Compute the hash of the block with the given nonce into a buffer.
+   *
+   * @param nonce The nonce to try.
+   * @param out Where to put the hash.
+   * @param offset Where in out the hash starts. There must be 32 bytes available.
+   */
+  public void hashInto(long nonce, byte[] out, int offset) {
+    Block.putLong(tail, nonceAt, nonce);
+    int lastWord = Math.min(CHUNK_WORDS, (nonceAt + Long.BYTES + 3) / Integer.BYTES);
+    for (int i = firstNonceWord; i < lastWord; i++) {
+      w1[i] = word(tail, i * Integer.BYTES);
+    } // for
+    expand(w1);
+    System.arraycopy(preRounds, 0, vars, 0, STATE_WORDS);
+    rounds(w1, firstNonceWord, ROUNDS, vars);
+    for (int i = 0; i < STATE_WORDS; i++) {
+      state[i] = midstate[i] + vars[i];
+    } // for
+
+    if (w2 != null) {
+      if (nonceInSecond) {
+        load(tail, CHUNK_BYTES, w2);
+        expand(w2);
+      } // if
+      System.arraycopy(state, 0, vars, 0, STATE_WORDS);
+      rounds(w2, 0, ROUNDS, vars);
+      for (int i = 0; i < STATE_WORDS; i++) {
+        state[i] += vars[i];
+      } // for
+    } // if
+
+    for (int i = 0; i < STATE_WORDS; i++) {
+      Block.putInt(out, offset + i * Integer.BYTES, state[i]);
+    } // for
+  } // hashInto(long, byte[], int)
+} // class HeaderHasher
@@ -0,0 +1,182 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * The balances of everyone in a chain, kept up to date as transactions are applied and undone.
+ * A user's balance is what they have received minus what they have sent, and the users are
+ * those who have received something (the empty name, used for deposits, is not a user). Each
+ * applied transaction goes in a journal so that it can be undone in reverse order.
+ *
+ * Names are interned to dense ids, and balances live in primitive arrays indexed by id, so
+ * applying and undoing transactions allocates nothing once the names have been seen.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class Ledger {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The ids of the names. */
+  private UserIds ids = new UserIds();
+
+  /** The balance of each name, by id. */
+  private long[] balances = new long[UserIds.INITIAL_CAPACITY];
+
+  /** The number of transactions to each name, by id. */
+  private int[] receipts = new int[UserIds.INITIAL_CAPACITY];
+
+  /** The transactions applied, in order. */
+  private ArrayList<Transaction> journal = new ArrayList<Transaction>();
+
+  /** The number of users. */
+  private int users = 0;
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Change one account.
+   *
+   * @param name The name on the account. Null names have no account.
+   * @param amount The change to the balance.
+   * @param received The change to the number of transactions to the account.
+   */
+  void adjust(String name, long amount, int received) {
+    if (name == null) {
+      return;
+    } // if
+    int id = ids.intern(name);
+    if (id == balances.length) {
+      balances = Arrays.copyOf(balances, 2 * id);
+      receipts = Arrays.copyOf(receipts, 2 * id);
+    } // if
+    int before = receipts[id];
+    balances[id] += amount;
+    receipts[id] += received;
+    if ((before == 0) != (receipts[id] == 0) && !name.isEmpty()) {
+      users += (before == 0) ? 1 : -1;
+    } // if
+  } // adjust(String, long, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Apply a transaction.
+   *
+   * @param t The transaction.
+   */
+  public void apply(Transaction t) {
+    adjust(t.getSource(), -(long) t.getAmount(), 0);
+    adjust(t.getTarget(), t.getAmount(), 1);
+    journal.add(t);
+  } // apply(Transaction)
+
+  /**
+   * Undo the last transaction applied.
+   *
+   * @return the transaction undone.
+   *
+   * @throws IllegalStateException if there is nothing to undo.
+   */
+  public Transaction undo() {
+    if (journal.isEmpty()) {
+      throw new IllegalStateException("Nothing to undo");
+    } // if
+    Transaction t = journal.remove(journal.size() - 1);
+    adjust(t.getTarget(), -(long) t.getAmount(), -1);
+    adjust(t.getSource(), t.getAmount(), 0);
+    return t;
+  } // undo()
+
+  /**
+   * Get the number of transactions applied and not undone.
+   *
+   * @return the number of transactions.
+   */
+  public int size() {
+    return journal.size();
+  } // size()
+
+  /**
+   * Undo transactions until only the given number remain.
+   *
+   * @param mark The number of transactions to keep, from an earlier call to size().
+   */
+  public void rollbackTo(int mark) {
+    while (journal.size() > mark) {
+      undo();
+    } // while
+  } // rollbackTo(int)
+
+  /**
+   * Find one user's balance.
+   *
+   * @param name The user.
+   *
+   * @return that user's balance, or 0 if they have none.
+   */
+  public long balance(String name) {
+    int id = ids.find(name);
+    return (id < 0) ? 0 : balances[id];
+  } // balance(String)
+
+  /**
+   * Determine whether someone is a user, having received something.
+   *
+   * @param name The name to look for.
+   *
+   * @return true if they are a user, false otherwise.
+   */
+  public boolean isUser(String name) {
+    int id = ids.find(name);
+    return id >= 0 && receipts[id] > 0 && !name.isEmpty();
+  } // isUser(String)
+
+  /**
+   * Get the number of users.
+   *
+   * @return the number of users.
+   */
+  public int userCount() {
+    return this.users;
+  } // userCount()
+
+  /**
+   * Get all the users. Later changes to the ledger do not affect the iterator.
+   *
+   * @return an iterator of the users.
+   */
+  public Iterator<String> users() {
+    ArrayList<String> result = new ArrayList<String>(this.users);
+    for (int id = 0; id < ids.size(); id++) {
+      if (receipts[id] > 0 && !ids.name(id).isEmpty()) {
+        result.add(ids.name(id));
+      } // if
+    } // for
+    return result.iterator();
+  } // users()
+
+  /**
+   * Get the balances of all the users.
+   *
+   * @return a new map from each user to their balance.
+   */
+  public HashMap<String, Integer> balances() {
+    HashMap<String, Integer> result = new HashMap<String, Integer>();
+    for (int id = 0; id < ids.size(); id++) {
+      if (receipts[id] > 0 && !ids.name(id).isEmpty()) {
+        result.put(ids.name(id), (int) balances[id]);
+      } // if
+    } // for
+    return result;
+  } // balances()
+} // class Ledger
@@ -0,0 +1,796 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Blocks kept on disk in append-only segment files that we read and write through memory maps.
+ * An index file holds the number of blocks and where each one starts, so reopening a chain reads
+ * only the header, and getting a block by height is a lookup plus a decode. Removing the last
+ * block just moves the end back, and the next block reuses the space once no view can reach it.
+ * Space that a view kept from the next block stays unused. Readers may still have the segments
+ * mapped after close, so we leave the space after the last block until the next open, which
+ * trims it from the files before it maps them.
+ *
+ * Views never change. We never write over a record that a view can reach, and before we write
+ * over an index entry that a view can reach, we keep the old entry for the views made before.
+ * A view keeps its last block in memory, so it reaches the records and entries below that
+ * block. We track views weakly and forget what a view reaches once it is collected.
+ *
+ * A block with a payload of many transactions keeps the number of transactions in the amount,
+ * PAYLOAD_MARK in place of the length of the source, and then its Merkle root and the amount,
+ * source, and target of each transaction before the previous hash and hash. The stored root is
+ * for other tools; we rebuild it from the transactions when we read the block.
+ *
+ * Records are written before the index entry that points at them, and the count is written
+ * last, so a crash in the middle of an add leaves the log as it was before the add.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class MappedBlockLog implements BlockStorage {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The size of each segment file, unless the caller picks another. */
+  public static final int DEFAULT_SEGMENT_BYTES = 1 << 26;
+
+  /** Marks the start of an index file. */
+  static final int MAGIC = 0x424C4B4C;
+
+  /** The bytes at the start of the index file: magic, segment size, count. */
+  static final int HEADER_BYTES = 16;
+
+  /** Where the segment size goes in the header. */
+  static final int SEGMENT_BYTES_AT = 4;
+
+  /** Where the number of blocks goes in the header. */
+  static final int COUNT_AT = 8;
+
+  /** The number of index entries in each mapped window of the index file. */
+  static final int ENTRIES_PER_MAP = 1 << 17;
+
+  /** The name of the index file. */
+  static final String INDEX_FILE = "blocks.idx";
+
+  /** The bytes in a record before its variable-length fields: length, num, nonce, amount. */
+  static final int FIXED_BYTES = 20;
+
+  /** The length of the source that marks a record with a payload. */
+  static final int PAYLOAD_MARK = -2;
+
+  /** Reads and writes index entries, with ordering for readers of views on other threads. */
+  private static final VarHandle ENTRIES =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * Index entries written over while this node was the newest. A view reads forward from the
+   * node that was newest when it was made; the first old entry it finds for a height is the one
+   * that was current when it was made.
+   */
+  private static class Displaced {
+    /** The old entries, by height. */
+    final ConcurrentHashMap<Integer, Long> entries = new ConcurrentHashMap<Integer, Long>();
+
+    /** The next newer node, or null. */
+    volatile Displaced next = null;
+  } // class Displaced
+
+  /**
+   * What a view can reach, kept until the view is collected.
+   */
+  private static class Reach extends WeakReference<BlockStorage.View> {
+    /** The view reads the index entries below this height. */
+    final int height;
+
+    /** The view reads the records before this place. */
+    final long end;
+
+    /**
+     * Track a view.
+     *
+     * @param view The view.
+     * @param height1 The view reads the index entries below this height.
+     * @param end1 The view reads the records before this place.
+     * @param queue Where the reach goes once the view is collected.
+     */
+    Reach(BlockStorage.View view, int height1, long end1, ReferenceQueue<Object> queue) {
+      super(view, queue);
+      this.height = height1;
+      this.end = end1;
+    } // Reach(BlockStorage.View, int, long, ReferenceQueue<Object>)
+  } // class Reach
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The directory that holds the files. */
+  private Path dir;
+
+  /** The size of each segment file. */
+  private int segmentBytes;
+
+  /** The index file. */
+  private FileChannel indexChannel;
+
+  /** The header of the index file. */
+  private MappedByteBuffer header;
+
+  /**
+   * Windows onto the entries of the index file. We replace the array rather than change it, so
+   * readers can take it without locking.
+   */
+  private volatile MappedByteBuffer[] indexMaps = new MappedByteBuffer[0];
+
+  /** The segment files, replaced in the same way as the windows. */
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+  /** The number of blocks stored. */
+  private int size;
+
+  /** The segment the next block goes in. */
+  private int segment;
+
+  /** Where the next block goes in that segment. */
+  private int position;
+
+  /** The first segment written since the last sync. */
+  private int unsynced;
+
+  /** The newest node of old index entries. */
+  private Displaced displaced = new Displaced();
+
+  /** A view may read the index entries below this height. */
+  private int shared = 0;
+
+  /** A view may read the records before this place, so the next block goes no earlier. */
+  private long reserved = 0;
+
+  /** What the views not yet collected can reach. */
+  private HashSet<Reach> views = new HashSet<Reach>();
+
+  /** Where the reach of each collected view turns up. */
+  private ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+
+  /** The last block, once we have read or written it. */
+  private Block last = null;
+
+  /** Where we encode records. */
+  private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+  /** Whether we have been closed. Readers on other threads check it without locking. */
+  private volatile boolean closed = false;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Open the log in a directory, creating it if need be.
+   *
+   * @param dir1 The directory.
+   *
+   * @throws IOException if the files cannot be opened or are not a block log.
+   */
+  public MappedBlockLog(Path dir1) throws IOException {
+    this(dir1, DEFAULT_SEGMENT_BYTES);
+  } // MappedBlockLog(Path)
+
+  /**
+   * Open the log in a directory, creating it if need be.
+   *
+   * @param dir1 The directory.
+   * @param segmentBytes1 The size of each segment file for a new log. An existing log keeps the
+   *        size it was created with.
+   *
+   * @throws IOException if the files cannot be opened or are not a block log.
+   */
+  public MappedBlockLog(Path dir1, int segmentBytes1) throws IOException {
+    this.dir = dir1;
+    Files.createDirectories(dir1);
+    this.indexChannel = FileChannel.open(dir1.resolve(INDEX_FILE), StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    this.header = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+    int magic = header.getInt(0);
+    if (magic == 0) {
+      header.putInt(SEGMENT_BYTES_AT, segmentBytes1);
+      header.putInt(COUNT_AT, 0);
+      header.putInt(0, MAGIC);
+    } else if (magic != MAGIC) {
+      indexChannel.close();
+      throw new IOException("Not a block log: `" + dir1 + "`");
+    } // if
+    this.segmentBytes = header.getInt(SEGMENT_BYTES_AT);
+    this.size = header.getInt(COUNT_AT);
+    if (this.size > 0) {
+      long entry = entry(this.size - 1);
+      this.segment = (int) (entry >>> 32);
+      try (FileChannel channel = FileChannel.open(segmentPath(this.segment),
+          StandardOpenOption.READ)) {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(length, (int) entry);
+        this.position = (int) entry + length.getInt(0);
+      } // try
+    } else {
+      this.segment = 0;
+      this.position = 0;
+    } // if
+    this.unsynced = this.segment;
+    trim();
+  } // MappedBlockLog(Path, int)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Map part of a file, growing the file if need be.
+   *
+   * @param channel The file.
+   * @param offset Where the mapping starts.
+   * @param length The size of the mapping.
+   *
+   * @return the mapping.
+   */
+  static MappedByteBuffer map(FileChannel channel, long offset, int length) {
+    try {
+      return channel.map(FileChannel.MapMode.READ_WRITE, offset, length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try/catch
+  } // map(FileChannel, long, int)
+
+  /**
+   * Trim the space after the last block from the segment files, before we map any of them. A
+   * file that the system will not trim, say because an old mapping of it is still open, keeps
+   * its space until a later open.
+   */
+  void trim() {
+    try {
+      Path last = segmentPath(this.segment);
+      if (Files.exists(last) && Files.size(last) > this.position) {
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+          channel.truncate(this.position);
+        } // try
+      } // if
+      for (int i = this.segment + 1; Files.deleteIfExists(segmentPath(i)); i++) {
+        // Nothing more to do; the segment is gone.
+      } // for
+    } catch (IOException e) {
+      // Trimming only saves space, so we carry on without it.
+    } // try/catch
+  } // trim()
+
+  /**
+   * Get the path of a segment file.
+   *
+   * @param i The number of the segment.
+   *
+   * @return its path.
+   */
+  Path segmentPath(int i) {
+    return dir.resolve(String.format("blocks-%05d.seg", i));
+  } // segmentPath(int)
+
+  /**
+   * Get a segment, mapping it (and any before it) if we have not yet.
+   *
+   * @param i The number of the segment.
+   *
+   * @return the mapped segment.
+   */
+  MappedByteBuffer segment(int i) {
+    MappedByteBuffer[] maps = this.segments;
+    return (i < maps.length) ? maps[i] : mapSegment(i);
+  } // segment(int)
+
+  /**
+   * Map a segment and any before it. Readers on several threads may map segments at once, so
+   * we lock.
+   *
+   * @param i The number of the segment.
+   *
+   * @return the mapped segment.
+   */
+  synchronized MappedByteBuffer mapSegment(int i) {
+    ensureOpen();
+    MappedByteBuffer[] maps = this.segments;
+    if (i >= maps.length) {
+      maps = Arrays.copyOf(maps, i + 1);
+      for (int j = this.segments.length; j <= i; j++) {
+        try (FileChannel channel = FileChannel.open(segmentPath(j), StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+          // The mapping stays valid after the channel closes.
+          maps[j] = map(channel, 0, segmentBytes);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        } // try/catch
+      } // for
+      this.segments = maps;
+    } // if
+    return maps[i];
+  } // mapSegment(int)
+
+  /**
+   * Get the window of the index file that holds the entry for a height.
+   *
+   * @param height The height.
+   *
+   * @return the window.
+   */
+  MappedByteBuffer indexMap(int height) {
+    MappedByteBuffer[] maps = this.indexMaps;
+    int i = height / ENTRIES_PER_MAP;
+    return (i < maps.length) ? maps[i] : mapIndex(i);
+  } // indexMap(int)
+
+  /**
+   * Map a window of the index file and any before it, locking as for segments.
+   *
+   * @param i The number of the window.
+   *
+   * @return the window.
+   */
+  synchronized MappedByteBuffer mapIndex(int i) {
+    ensureOpen();
+    MappedByteBuffer[] maps = this.indexMaps;
+    if (i >= maps.length) {
+      maps = Arrays.copyOf(maps, i + 1);
+      for (int j = this.indexMaps.length; j <= i; j++) {
+        long start = HEADER_BYTES + (long) j * ENTRIES_PER_MAP * Long.BYTES;
+        maps[j] = map(indexChannel, start, ENTRIES_PER_MAP * Long.BYTES);
+      } // for
+      this.indexMaps = maps;
+    } // if
+    return maps[i];
+  } // mapIndex(int)
+
+  /**
+   * Get the index entry for a height: the segment in the high word and the offset in the low.
+   *
+   * @param height The height.
+   *
+   * @return the entry.
+   */
+  long entry(int height) {
+    return (long) ENTRIES.getAcquire(indexMap(height), (height % ENTRIES_PER_MAP) * Long.BYTES);
+  } // entry(int)
+
+  /**
+   * Encode a block into the buffer, from its start to its position.
+   *
+   * @param blk The block.
+   */
+  void encode(Block blk) {
+    Transaction t = blk.getTransaction();
+    byte[] prev = (blk.getPrevHash() == null) ? null : blk.getPrevHash().contents;
+    byte[] hash = blk.getHash().contents;
+    int count = blk.hasPayload() ? blk.getTransactionCount() : 1;
+    byte[][] names = new byte[2 * count][];
+    int length = FIXED_BYTES + 2 * Integer.BYTES + lengthOf(prev) + lengthOf(hash);
+    if (blk.hasPayload()) {
+      length += 2 * Integer.BYTES + blk.getMerkleRoot().contents.length + count * Integer.BYTES;
+    } // if
+    for (int i = 0; i < count; i++) {
+      Transaction each = blk.hasPayload() ? blk.getTransaction(i) : t;
+      names[2 * i] = utf8(each.getSource());
+      names[2 * i + 1] = utf8(each.getTarget());
+      length += 2 * Integer.BYTES + lengthOf(names[2 * i]) + lengthOf(names[2 * i + 1]);
+    } // for
+    if (buffer.capacity() < length) {
+      buffer = ByteBuffer.allocate(Math.max(length, 2 * buffer.capacity()));
+    } // if
+    buffer.clear();
+    buffer.putInt(length).putInt(blk.getNum()).putLong(blk.getNonce()).putInt(t.getAmount());
+    if (blk.hasPayload()) {
+      buffer.putInt(PAYLOAD_MARK);
+      putBytes(blk.getMerkleRoot().contents);
+      for (int i = 0; i < count; i++) {
+        buffer.putInt(blk.getTransaction(i).getAmount());
+        putBytes(names[2 * i]);
+        putBytes(names[2 * i + 1]);
+      } // for
+    } else {
+      putBytes(names[0]);
+      putBytes(names[1]);
+    } // if
+    putBytes(prev);
+    putBytes(hash);
+  } // encode(Block)
+
+  /**
+   * Decode a string written by putBytes.
+   *
+   * @param bytes Its UTF-8 bytes, or null.
+   *
+   * @return the string, or null.
+   */
+  static String string(byte[] bytes) {
+    return (bytes == null) ? null : new String(bytes, StandardCharsets.UTF_8);
+  } // string(byte[])
+
+  /**
+   * Encode a string as UTF-8.
+   *
+   * @param str The string, which may be null.
+   *
+   * @return its bytes, or null.
+   */
+  static byte[] utf8(String str) {
+    return (str == null) ? null : str.getBytes(StandardCharsets.UTF_8);
+  } // utf8(String)
+
+  /**
+   * Get the number of bytes in an array, or 0 for null.
+   *
+   * @param bytes The array.
+   *
+   * @return its length.
+   */
+  static int lengthOf(byte[] bytes) {
+    return (bytes == null) ? 0 : bytes.length;
+  } // lengthOf(byte[])
+
+  /**
+   * Add an array and its length to the buffer. We write a length of -1 for null.
+   *
+   * @param bytes The array.
+   */
+  void putBytes(byte[] bytes) {
+    if (bytes == null) {
+      buffer.putInt(-1);
+    } else {
+      buffer.putInt(bytes.length).put(bytes);
+    } // if
+  } // putBytes(byte[])
+
+  /**
+   * Read an array written by putBytes.
+   *
+   * @param seg The segment that holds it.
+   * @param offset Where its length starts.
+   *
+   * @return the array, or null.
+   */
+  static byte[] getBytes(MappedByteBuffer seg, int offset) {
+    int length = seg.getInt(offset);
+    if (length < 0) {
+      return null;
+    } // if
+    byte[] bytes = new byte[length];
+    seg.get(offset + Integer.BYTES, bytes);
+    return bytes;
+  } // getBytes(MappedByteBuffer, int)
+
+  /**
+   * Read the block at a height.
+   *
+   * @param height The height.
+   *
+   * @return the block.
+   */
+  Block read(int height) {
+    return read(entry(height));
+  } // read(int)
+
+  /**
+   * Read the block that an index entry points at.
+   *
+   * @param entry The entry.
+   *
+   * @return the block.
+   */
+  Block read(long entry) {
+    MappedByteBuffer seg = segment((int) (entry >>> 32));
+    int at = (int) entry + Integer.BYTES;
+    int num = seg.getInt(at);
+    long nonce = seg.getLong(at + Integer.BYTES);
+    int amount = seg.getInt(at + Integer.BYTES + Long.BYTES);
+    at = (int) entry + FIXED_BYTES;
+    Transaction[] payload = null;
+    Transaction t = null;
+    if (seg.getInt(at) == PAYLOAD_MARK) {
+      // We rebuild the root from the transactions rather than trust the stored one, so that the
+      // root and any proofs always agree with what computeHash() sees.
+      at += 2 * Integer.BYTES + seg.getInt(at + Integer.BYTES);
+      payload = new Transaction[amount];
+      for (int i = 0; i < amount; i++) {
+        int each = seg.getInt(at);
+        byte[] source = getBytes(seg, at + Integer.BYTES);
+        at += 2 * Integer.BYTES + lengthOf(source);
+        byte[] target = getBytes(seg, at);
+        at += Integer.BYTES + lengthOf(target);
+        payload[i] = new Transaction(string(source), string(target), each);
+      } // for
+    } else {
+      byte[] source = getBytes(seg, at);
+      at += Integer.BYTES + lengthOf(source);
+      byte[] target = getBytes(seg, at);
+      at += Integer.BYTES + lengthOf(target);
+      t = new Transaction(string(source), string(target), amount);
+    } // if
+    byte[] prev = getBytes(seg, at);
+    at += Integer.BYTES + lengthOf(prev);
+    Hash hash = Hash.wrap(getBytes(seg, at));
+    Hash prevHash = (prev == null) ? null : Hash.wrap(prev);
+    if (payload != null) {
+      return new Block(num, payload, null, prevHash, nonce, hash);
+    } // if
+    return new Block(num, t, prevHash, nonce, hash);
+  } // read(long)
+
+  /**
+   * Forget what collected views could reach, and work out again what the others can.
+   */
+  void release() {
+    boolean any = false;
+    for (Reference<?> ref = collected.poll(); ref != null; ref = collected.poll()) {
+      any |= views.remove(ref);
+    } // for
+    if (any) {
+      shared = 0;
+      reserved = 0;
+      for (Reach reach : views) {
+        shared = Math.max(shared, reach.height);
+        reserved = Math.max(reserved, reach.end);
+      } // for
+    } // if
+  } // release()
+
+  /**
+   * Get the number of views that have not been collected.
+   *
+   * @return that number.
+   */
+  int liveViews() {
+    release();
+    return views.size();
+  } // liveViews()
+
+  /**
+   * Make sure the log is still open.
+   */
+  void ensureOpen() {
+    if (closed) {
+      throw new IllegalStateException("Block log is closed");
+    } // if
+  } // ensureOpen()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of blocks stored.
+   *
+   * @return the number of blocks.
+   */
+  public int size() {
+    return this.size;
+  } // size()
+
+  /**
+   * Get the block at a given height. Each call except for the last block reads a fresh copy.
+   *
+   * @param height The height of the block.
+   *
+   * @return that block.
+   */
+  public Block get(int height) {
+    ensureOpen();
+    if (height < 0 || height >= this.size) {
+      throw new IndexOutOfBoundsException(height);
+    } // if
+    return (height == this.size - 1) ? last() : read(height);
+  } // get(int)
+
+  /**
+   * Get the last block.
+   *
+   * @return the last block.
+   */
+  public Block last() {
+    ensureOpen();
+    if (this.size == 0) {
+      throw new NoSuchElementException();
+    } // if
+    if (this.last == null) {
+      this.last = read(this.size - 1);
+    } // if
+    return this.last;
+  } // last()
+
+  /**
+   * Add a block after the last one.
+   *
+   * @param blk The block to add.
+   *
+   * @throws IllegalArgumentException if the block does not fit in a segment.
+   */
+  public void add(Block blk) {
+    ensureOpen();
+    encode(blk);
+    int length = buffer.position();
+    if (length > segmentBytes) {
+      throw new IllegalArgumentException("Block too large for segment: " + length + " bytes");
+    } // if
+    release();
+    long at = Math.max(((long) this.segment << 32) | this.position, reserved);
+    int seg = (int) (at >>> 32);
+    int pos = (int) at;
+    if (pos + length > segmentBytes) {
+      seg++;
+      pos = 0;
+    } // if
+    segment(seg).put(pos, buffer.array(), 0, length);
+    if (this.size < shared) {
+      displaced.entries.putIfAbsent(this.size, entry(this.size));
+    } // if
+    ENTRIES.setRelease(indexMap(this.size), (this.size % ENTRIES_PER_MAP) * Long.BYTES,
+        ((long) seg << 32) | pos);
+    this.segment = seg;
+    this.position = pos + length;
+    this.size++;
+    header.putInt(COUNT_AT, this.size);
+    this.last = blk;
+  } // add(Block)
+
+  /**
+   * Remove the last block.
+   *
+   * @return the block removed.
+   */
+  public Block removeLast() {
+    Block blk = last();
+    this.size--;
+    header.putInt(COUNT_AT, this.size);
+    long start = entry(this.size);
+    this.segment = (int) (start >>> 32);
+    this.position = (int) start;
+    this.unsynced = Math.min(this.unsynced, this.segment);
+    this.last = null;
+    return blk;
+  } // removeLast()
+
+  /**
+   * Iterate a range of blocks in order of height, reading them from the segments.
+   *
+   * @param from The height of the first block.
+   * @param to The height just past the last block. May be larger than size().
+   *
+   * @return an iterator for those blocks.
+   */
+  public Iterator<Block> iterator(int from, int to) {
+    if (from < 0) {
+      throw new IndexOutOfBoundsException(from);
+    } // if
+    return new Iterator<Block>() {
+      private int height = from;
+
+      public boolean hasNext() {
+        return this.height < to && this.height < MappedBlockLog.this.size;
+      } // hasNext()
+
+      public Block next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        return get(this.height++);
+      } // next()
+    };
+  } // iterator(int, int)
+
+  /**
+   * Get a view of the blocks stored now. The view keeps the last block, and reads the others
+   * from the segments without looking at the current size, so it still finds blocks removed
+   * after it was made, even once others take their place.
+   *
+   * @return the view.
+   */
+  public BlockStorage.View view() {
+    int count = this.size;
+    Block tip = (count == 0) ? null : last();
+    if (!displaced.entries.isEmpty()) {
+      Displaced newer = new Displaced();
+      displaced.next = newer;
+      displaced = newer;
+    } // if
+    Displaced from = displaced;
+    BlockStorage.View result = new BlockStorage.View() {
+      public int size() {
+        return count;
+      } // size()
+
+      public Block get(int height) {
+        ensureOpen();
+        if (height < 0 || height >= count) {
+          throw new IndexOutOfBoundsException(height);
+        } // if
+        if (height == count - 1) {
+          return tip;
+        } // if
+        // Read the entry before the old ones, since the writer keeps an old entry before it
+        // writes over it.
+        long entry = entry(height);
+        for (Displaced d = from; d != null; d = d.next) {
+          Long old = d.entries.get(height);
+          if (old != null) {
+            entry = old;
+            break;
+          } // if
+        } // for
+        return read(entry);
+      } // get(int)
+    };
+    if (count > 1) {
+      long end = entry(count - 1);
+      release();
+      views.add(new Reach(result, count - 1, end, collected));
+      shared = Math.max(shared, count - 1);
+      reserved = Math.max(reserved, end);
+    } // if
+    return result;
+  } // view()
+
+  /**
+   * Write everything added so far through to the disk.
+   */
+  public void sync() {
+    ensureOpen();
+    MappedByteBuffer[] maps = this.segments;
+    for (int i = this.unsynced; i <= this.segment && i < maps.length; i++) {
+      maps[i].force();
+    } // for
+    for (MappedByteBuffer map : this.indexMaps) {
+      map.force();
+    } // for
+    header.force();
+    this.unsynced = this.segment;
+  } // sync()
+
+  /**
+   * Sync the log and close it. The log and its views cannot be used afterwards. We leave the
+   * files as they are, since readers may still have them mapped; the next open trims them.
+   */
+  public void close() {
+    if (closed) {
+      return;
+    } // if
+    sync();
+    closed = true;
+    synchronized (this) {
+      segments = new MappedByteBuffer[0];
+      indexMaps = new MappedByteBuffer[0];
+    } // synchronized
+    header = null;
+    try {
+      indexChannel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try/catch
+  } // close()
+} // class MappedBlockLog
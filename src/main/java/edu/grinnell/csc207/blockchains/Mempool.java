@@ -0,0 +1,365 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Transactions waiting to be mined. Any thread may submit transactions; each one is checked
+ * against the balances the chain would have once everything already waiting is mined, using the
+ * rules of BlockChain.checkTransaction(): deposits are always fine, and anyone else must already
+ * be a user with enough money. Miners take the transactions in order of priority, except that a
+ * transaction waits until the money it spends has been taken for mining, so blocks mined in the
+ * order we give them out keep every balance legal.
+ *
+ * Transactions taken for mining count against the balances until a block holding them reaches
+ * the chain, or until the miner gives them back with release(). Whenever the chain changes, we
+ * drop the waiting and taken transactions that made it into the new blocks, check the waiting
+ * ones again in the order they arrived, and drop any that no longer pass.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class Mempool {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** Mine larger transactions first. */
+  public static final Comparator<Transaction> LARGEST_FIRST =
+      Comparator.comparingInt(Transaction::getAmount).reversed();
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * A transaction and when it arrived, which breaks ties in priority.
+   */
+  private static class Entry {
+    /** The transaction. */
+    Transaction transaction;
+
+    /** How many transactions arrived before this one. */
+    long arrival;
+
+    /**
+     * Create an entry.
+     *
+     * @param transaction1 The transaction.
+     * @param arrival1 How many transactions arrived before it.
+     */
+    Entry(Transaction transaction1, long arrival1) {
+      this.transaction = transaction1;
+      this.arrival = arrival1;
+    } // Entry(Transaction, long)
+  } // class Entry
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The chain the transactions are for. */
+  private BlockChain chain;
+
+  /** The order in which to mine transactions. */
+  private Comparator<Entry> order;
+
+  /** The transactions waiting. */
+  private PriorityQueue<Entry> waiting;
+
+  /** The transactions taken for mining that have not yet reached the chain. */
+  private ArrayList<Entry> out = new ArrayList<Entry>();
+
+  /** How much each balance will change once the waiting and taken transactions are mined. */
+  private HashMap<String, Long> pending = new HashMap<String, Long>();
+
+  /** How much each balance will change once the taken transactions are mined. */
+  private HashMap<String, Long> taken = new HashMap<String, Long>();
+
+  /** The number of transactions that have arrived. */
+  private long arrivals = 0;
+
+  /** The number of transactions dropped because they no longer passed. */
+  private int evicted = 0;
+
+  /** The chain as we last saw it. */
+  private ChainSnapshot seen;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty pool that gives the largest transactions first.
+   *
+   * @param chain1 The chain the transactions are for.
+   */
+  public Mempool(BlockChain chain1) {
+    this(chain1, LARGEST_FIRST);
+  } // Mempool(BlockChain)
+
+  /**
+   * Create an empty pool.
+   *
+   * @param chain1 The chain the transactions are for.
+   * @param priority The order in which to give transactions to miners. Transactions that tie
+   *        come out in the order they arrived.
+   */
+  public Mempool(BlockChain chain1, Comparator<Transaction> priority) {
+    this.chain = chain1;
+    this.order = Comparator.<Entry, Transaction>comparing((e) -> e.transaction, priority)
+        .thenComparingLong((e) -> e.arrival);
+    this.waiting = new PriorityQueue<Entry>(this.order);
+    this.seen = chain1.snapshot();
+  } // Mempool(BlockChain, Comparator<Transaction>)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Determine whether a transaction passes given the balances after some changes.
+   *
+   * @param t The transaction.
+   * @param chain The chain.
+   * @param changes The changes to the balances in the chain.
+   *
+   * @return true if it passes, false otherwise.
+   */
+  static boolean passes(Transaction t, BlockChain chain, HashMap<String, Long> changes) {
+    if (t.getAmount() < 0 || t.getTarget() == null || t.getSource() == null) {
+      return false;
+    } else if (t.getSource().equals("")) {
+      return true;
+    } // if
+    String source = t.getSource();
+    Long change = changes.get(source);
+    if (change == null && !chain.isUser(source)) {
+      return false;
+    } // if
+    long balance = chain.balance(source) + ((change == null) ? 0 : change);
+    return balance >= t.getAmount();
+  } // passes(Transaction, BlockChain, HashMap<String, Long>)
+
+  /**
+   * Count a transaction in some changes to the balances.
+   *
+   * @param t The transaction.
+   * @param changes The changes.
+   */
+  static void project(Transaction t, HashMap<String, Long> changes) {
+    if (!t.getSource().equals("")) {
+      changes.merge(t.getSource(), (long) -t.getAmount(), Long::sum);
+    } // if
+    changes.merge(t.getTarget(), (long) t.getAmount(), Long::sum);
+  } // project(Transaction, HashMap<String, Long>)
+
+  /**
+   * Drop the entries whose transactions are among some mined ones. Each mined transaction
+   * accounts for one entry, so of several equal transfers only as many are dropped as were
+   * mined.
+   *
+   * @param entries The entries.
+   * @param mined How many of each transaction were mined; updated as entries are dropped.
+   */
+  static void dropMined(List<Entry> entries, HashMap<Transaction, Integer> mined) {
+    Iterator<Entry> iter = entries.iterator();
+    while (iter.hasNext()) {
+      Entry e = iter.next();
+      Integer left = mined.get(e.transaction);
+      if (left != null) {
+        iter.remove();
+        if (left == 1) {
+          mined.remove(e.transaction);
+        } else {
+          mined.put(e.transaction, left - 1);
+        } // if
+      } // if
+    } // while
+  } // dropMined(List<Entry>, HashMap<Transaction, Integer>)
+
+  /**
+   * Count the transactions taken for mining in the changes they make.
+   */
+  void recount() {
+    taken.clear();
+    for (Entry e : out) {
+      project(e.transaction, taken);
+    } // for
+  } // recount()
+
+  /**
+   * Catch up with any change to the chain: drop the transactions that are now in blocks, then
+   * check the waiting ones again in the order they arrived, since a transaction may spend money
+   * from one that arrived before it. We match mined transactions by value rather than identity,
+   * since blocks read back from storage or mined elsewhere hold copies.
+   */
+  void refresh() {
+    ChainSnapshot now = chain.snapshot();
+    if (now == seen) {
+      return;
+    } // if
+
+    // Find where the chain we last saw and the chain now part ways.
+    int fork = Math.min(seen.getSize(), now.getSize()) - 1;
+    while (fork > 0 && !now.getBlock(fork).getHash().equals(seen.getBlock(fork).getHash())) {
+      fork--;
+    } // while
+    HashMap<Transaction, Integer> mined = new HashMap<Transaction, Integer>();
+    for (int height = fork + 1; height < now.getSize(); height++) {
+      for (Transaction t : now.getBlock(height).getTransactions()) {
+        mined.merge(t, 1, Integer::sum);
+      } // for
+    } // for
+
+    // Transactions taken for mining are the likeliest to be in the new blocks, so they go first.
+    dropMined(out, mined);
+    ArrayList<Entry> entries = new ArrayList<Entry>(waiting);
+    entries.sort(Comparator.comparingLong((e) -> e.arrival));
+    dropMined(entries, mined);
+
+    waiting.clear();
+    recount();
+    pending = new HashMap<String, Long>(taken);
+    seen = now;
+    for (Entry e : entries) {
+      if (passes(e.transaction, chain, pending)) {
+        waiting.add(e);
+        project(e.transaction, pending);
+      } else {
+        evicted++;
+      } // if
+    } // for
+  } // refresh()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add a transaction to the pool if it passes.
+   *
+   * @param t The transaction.
+   *
+   * @return true if the transaction is now waiting, false if it does not pass.
+   */
+  public synchronized boolean submit(Transaction t) {
+    refresh();
+    if (!passes(t, chain, pending)) {
+      return false;
+    } // if
+    waiting.add(new Entry(t, arrivals++));
+    project(t, pending);
+    return true;
+  } // submit(Transaction)
+
+  /**
+   * Take the transaction with the highest priority that the chain and the transactions already
+   * taken can pay for, to mine it.
+   *
+   * @return the transaction, or null if none are waiting.
+   */
+  public synchronized Transaction poll() {
+    refresh();
+    ArrayList<Entry> skipped = new ArrayList<Entry>();
+    Entry e = waiting.poll();
+    while (e != null && !passes(e.transaction, chain, taken)) {
+      skipped.add(e);
+      e = waiting.poll();
+    } // while
+    waiting.addAll(skipped);
+    if (e == null) {
+      return null;
+    } // if
+    out.add(e);
+    project(e.transaction, taken);
+    return e.transaction;
+  } // poll()
+
+  /**
+   * Take several transactions in order of priority, to mine them.
+   *
+   * @param max The most transactions to take.
+   *
+   * @return the transactions, which may be none.
+   */
+  public synchronized List<Transaction> drain(int max) {
+    ArrayList<Transaction> result = new ArrayList<Transaction>();
+    while (result.size() < max) {
+      Transaction t = poll();
+      if (t == null) {
+        break;
+      } // if
+      result.add(t);
+    } // while
+    return result;
+  } // drain(int)
+
+  /**
+   * Give back a transaction taken for mining that will not be mined after all, so that it waits
+   * again.
+   *
+   * @param t The transaction.
+   *
+   * @return true if it was taken and not yet mined, false otherwise.
+   */
+  public synchronized boolean release(Transaction t) {
+    refresh();
+    for (int i = 0; i < out.size(); i++) {
+      Entry e = out.get(i);
+      if (e.transaction.equals(t)) {
+        out.remove(i);
+        recount();
+        waiting.add(e);
+        return true;
+      } // if
+    } // for
+    return false;
+  } // release(Transaction)
+
+  /**
+   * Start mining the transaction with the highest priority. If the task is abandoned, release
+   * its transaction.
+   *
+   * @return the mining task, or null if no transactions are waiting.
+   */
+  public MiningTask mineNext() {
+    Transaction t = poll();
+    return (t == null) ? null : chain.mineAsync(t);
+  } // mineNext()
+
+  /**
+   * Find what a user's balance will be once everything waiting or being mined is in the chain.
+   *
+   * @param user The user.
+   *
+   * @return that balance.
+   */
+  public synchronized long projectedBalance(String user) {
+    refresh();
+    return chain.balance(user) + pending.getOrDefault(user, 0L);
+  } // projectedBalance(String)
+
+  /**
+   * Get the number of transactions waiting.
+   *
+   * @return that number.
+   */
+  public synchronized int size() {
+    refresh();
+    return waiting.size();
+  } // size()
+
+  /**
+   * Get the number of transactions dropped because the chain changed under them.
+   *
+   * @return that number.
+   */
+  public synchronized int getEvicted() {
+    return this.evicted;
+  } // getEvicted()
+} // class Mempool
@@ -0,0 +1,119 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.security.MessageDigest;
+
+/**
+ * A proof that a transaction is in a block, which a client can check with just the header of
+ * the block (see Block.getHeader()). The proof holds the hashes of the siblings along the path
+ * from the transaction's leaf to the root of the block's Merkle tree.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class MerkleProof {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The index of the transaction in the block. */
+  private final int index;
+
+  /** The number of transactions in the block. */
+  private final int count;
+
+  /** The siblings along the path, from the leaf up. */
+  private final Hash[] siblings;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a proof.
+   *
+   * @param index1 The index of the transaction in the block.
+   * @param count1 The number of transactions in the block.
+   * @param siblings1 The siblings along the path, from the leaf up.
+   */
+  public MerkleProof(int index1, int count1, Hash[] siblings1) {
+    this.index = index1;
+    this.count = count1;
+    this.siblings = siblings1.clone();
+  } // MerkleProof(int, int, Hash[])
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the index of the transaction in the block.
+   *
+   * @return the index.
+   */
+  public int getIndex() {
+    return this.index;
+  } // getIndex()
+
+  /**
+   * Get the number of transactions in the block.
+   *
+   * @return the number of transactions.
+   */
+  public int getCount() {
+    return this.count;
+  } // getCount()
+
+  /**
+   * Get the number of hashes in the proof, which is about log2 of the number of transactions.
+   *
+   * @return the number of hashes.
+   */
+  public int size() {
+    return this.siblings.length;
+  } // size()
+
+  /**
+   * Determine whether the proof shows that a transaction is in a tree with a given root.
+   *
+   * @param t The transaction.
+   * @param root The root of the tree.
+   *
+   * @return true if it does, false otherwise.
+   */
+  public boolean verify(Transaction t, Hash root) {
+    if (index < 0 || index >= count || root == null) {
+      return false;
+    } // if
+    MessageDigest md = MerkleTree.digest();
+    Hash hash = MerkleTree.leafHash(md, t);
+    int at = index;
+    int used = 0;
+    for (int n = count; n > 1; n = (n + 1) / 2) {
+      if ((at ^ 1) < n) {
+        if (used == siblings.length) {
+          return false;
+        } // if
+        Hash sibling = siblings[used++];
+        hash = ((at & 1) == 0) ? MerkleTree.nodeHash(md, hash, sibling)
+            : MerkleTree.nodeHash(md, sibling, hash);
+      } // if
+      at >>>= 1;
+    } // for
+    return used == siblings.length && hash.equals(root);
+  } // verify(Transaction, Hash)
+
+  /**
+   * Determine whether the proof shows that a transaction is in a block. Only the header of the
+   * block is needed, and the count in the proof must match the header.
+   *
+   * @param t The transaction.
+   * @param header The block, or just its header.
+   *
+   * @return true if it does, false otherwise.
+   */
+  public boolean verify(Transaction t, Block header) {
+    return header.getMerkleRoot() != null
+        && header.getTransaction().getAmount() == this.count
+        && verify(t, header.getMerkleRoot());
+  } // verify(Transaction, Block)
+} // class MerkleProof
@@ -0,0 +1,185 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Merkle tree over the transactions of a block. Each leaf is the hash of one transaction and
+ * each node above is the hash of its two children, so the root commits to every transaction and
+ * to their order. When a level has an odd number of nodes, the last one moves up unchanged
+ * rather than being paired with itself, so no two lists of transactions share a root.
+ *
+ * Leaves and nodes are hashed with different leading bytes, so a node can never pass for a
+ * leaf. A leaf hashes the source, the target (each as a length and UTF-8 bytes, with a length
+ * of -1 for null), and the amount.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class MerkleTree {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The first byte hashed for a leaf. */
+  static final byte LEAF = 0;
+
+  /** The first byte hashed for a node. */
+  static final byte NODE = 1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The hashes at each level, from the leaves up to the root. */
+  private ArrayList<Hash[]> levels = new ArrayList<Hash[]>();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build the tree for some transactions.
+   *
+   * @param transactions The transactions, in order.
+   *
+   * @throws IllegalArgumentException if there are no transactions.
+   */
+  public MerkleTree(List<Transaction> transactions) {
+    if (transactions.isEmpty()) {
+      throw new IllegalArgumentException("No transactions");
+    } // if
+    MessageDigest md = digest();
+    Hash[] level = new Hash[transactions.size()];
+    for (int i = 0; i < level.length; i++) {
+      level[i] = leafHash(md, transactions.get(i));
+    } // for
+    levels.add(level);
+    while (level.length > 1) {
+      Hash[] up = new Hash[(level.length + 1) / 2];
+      for (int i = 0; i < up.length; i++) {
+        up[i] = (2 * i + 1 < level.length) ? nodeHash(md, level[2 * i], level[2 * i + 1])
+            : level[2 * i];
+      } // for
+      levels.add(up);
+      level = up;
+    } // while
+  } // MerkleTree(List<Transaction>)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get a digest for hashing leaves and nodes.
+   *
+   * @return the digest.
+   */
+  static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("sha-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Cannot load hash algorithm", e);
+    } // try/catch
+  } // digest()
+
+  /**
+   * Feed a string to a digest as its length and UTF-8 bytes.
+   *
+   * @param md The digest.
+   * @param scratch Four bytes used to encode the length.
+   * @param str The string, which may be null.
+   */
+  static void updateString(MessageDigest md, byte[] scratch, String str) {
+    byte[] bytes = (str == null) ? null : str.getBytes(StandardCharsets.UTF_8);
+    Block.putInt(scratch, 0, (bytes == null) ? -1 : bytes.length);
+    md.update(scratch, 0, Integer.BYTES);
+    if (bytes != null) {
+      md.update(bytes);
+    } // if
+  } // updateString(MessageDigest, byte[], String)
+
+  /**
+   * Hash a transaction into a leaf.
+   *
+   * @param md The digest to use.
+   * @param t The transaction.
+   *
+   * @return the hash of the leaf.
+   */
+  static Hash leafHash(MessageDigest md, Transaction t) {
+    byte[] scratch = new byte[Integer.BYTES];
+    md.update(LEAF);
+    updateString(md, scratch, t.getSource());
+    updateString(md, scratch, t.getTarget());
+    Block.putInt(scratch, 0, t.getAmount());
+    md.update(scratch, 0, Integer.BYTES);
+    return Hash.wrap(md.digest());
+  } // leafHash(MessageDigest, Transaction)
+
+  /**
+   * Hash two children into a node.
+   *
+   * @param md The digest to use.
+   * @param left The left child.
+   * @param right The right child.
+   *
+   * @return the hash of the node.
+   */
+  static Hash nodeHash(MessageDigest md, Hash left, Hash right) {
+    md.update(NODE);
+    md.update(left.contents);
+    md.update(right.contents);
+    return Hash.wrap(md.digest());
+  } // nodeHash(MessageDigest, Hash, Hash)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the root.
+   *
+   * @return the hash at the root of the tree.
+   */
+  public Hash getRoot() {
+    return levels.get(levels.size() - 1)[0];
+  } // getRoot()
+
+  /**
+   * Get the number of transactions.
+   *
+   * @return the number of leaves.
+   */
+  public int size() {
+    return levels.get(0).length;
+  } // size()
+
+  /**
+   * Prove that the transaction at an index is in the tree.
+   *
+   * @param index The index of the transaction.
+   *
+   * @return the proof, which holds one hash for each level where the path has a sibling.
+   *
+   * @throws IndexOutOfBoundsException if there is no transaction at that index.
+   */
+  public MerkleProof prove(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException(index);
+    } // if
+    ArrayList<Hash> siblings = new ArrayList<Hash>();
+    int at = index;
+    for (int i = 0; i < levels.size() - 1; i++) {
+      Hash[] level = levels.get(i);
+      if ((at ^ 1) < level.length) {
+        siblings.add(level[at ^ 1]);
+      } // if
+      at >>>= 1;
+    } // for
+    return new MerkleProof(index, size(), siblings.toArray(new Hash[0]));
+  } // prove(int)
+} // class MerkleTree
@@ -0,0 +1,113 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hashes for many nonces of one block. Only the trailing nonce changes between mining attempts,
+ * so we digest the block number, transaction, and previous hash once and then clone that digest
+ * state for each nonce. The hashes are the same as those from Block.computeHash().
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class MidstateDigest implements NonceHasher {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The digest after everything but the nonce has been fed to it. */
+  private MessageDigest prefix;
+
+  /** Whether the digest can be cloned. */
+  private boolean cloneable = true;
+
+  /** The number of the block. */
+  private int num;
+
+  /** The transaction for the block. */
+  private Transaction transaction;
+
+  /** The hash of the previous block. */
+  private Hash prevHash;
+
+  /** The buffer used to encode numbers. */
+  private byte[] scratch = new byte[Long.BYTES];
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Digest the fixed part of a block.
+   *
+   * @param num1 The number of the block.
+   * @param transaction1 The transaction for the block.
+   * @param prevHash1 The hash of the previous block.
+   */
+  public MidstateDigest(int num1, Transaction transaction1, Hash prevHash1) {
+    this.num = num1;
+    this.transaction = transaction1;
+    this.prevHash = prevHash1;
+    this.prefix = freshPrefix();
+  } // MidstateDigest(int, Transaction, Hash)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Build a new digest that has been fed the fixed part of the block.
+   *
+   * @return that digest.
+   */
+  MessageDigest freshPrefix() {
+    try {
+      MessageDigest md = MessageDigest.getInstance("sha-256");
+      Block.updatePrefix(md, scratch, num, transaction, prevHash);
+      return md;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Cannot load hash algorithm", e);
+    } // try/catch
+  } // freshPrefix()
+
+  /**
+   * Get a digest in the state just before the nonce, leaving the saved one untouched.
+   *
+   * @return that digest.
+   */
+  MessageDigest midstate() {
+    if (cloneable) {
+      try {
+        return (MessageDigest) prefix.clone();
+      } catch (CloneNotSupportedException e) {
+        // Some providers cannot copy their state, so we redo the prefix instead.
+        cloneable = false;
+      } // try/catch
+    } // if
+    return freshPrefix();
+  } // midstate()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Compute the hash of the block with the given nonce into a buffer.
+   *
+   * @param nonce The nonce to try.
+   * @param out Where to put the hash.
+   * @param offset Where in out the hash starts. There must be 32 bytes available.
+   */
+  public void hashInto(long nonce, byte[] out, int offset) {
+    MessageDigest md = midstate();
+    Block.putLong(scratch, 0, nonce);
+    md.update(scratch, 0, Long.BYTES);
+    try {
+      md.digest(out, offset, BlockHasher.HASH_BYTES);
+    } catch (DigestException e) {
+      throw new IllegalArgumentException("No room for hash at `" + offset + "`", e);
+    } // try/catch
+  } // hashInto(long, byte[], int)
+} // class MidstateDigest
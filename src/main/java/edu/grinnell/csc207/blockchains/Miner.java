@@ -0,0 +1,332 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A parallel nonce search. The nonce space is split across a fixed number of workers by
+ * striding, so worker i tries i, i + n, i + 2n, and so on. When a worker finds a valid nonce,
+ * every other worker stops as soon as it passes that nonce. All smaller nonces have therefore
+ * been tried, and the miner returns the smallest valid nonce, exactly as the serial search in
+ * the mining constructor of Block does.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class Miner {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** How many nonces a worker tries between progress reports and checks for a stop. */
+  static final int CHUNK = 1024;
+
+  /**
+   * The system property that picks the hasher of the default miner: "true" for the vector
+   * hasher and "false" for MidstateDigest.
+   */
+  public static final String VECTOR_PROPERTY = "blockchains.vector";
+
+  /**
+   * The fewest SIMD lanes at which the default miner uses the vector hasher unless told
+   * otherwise. With fewer lanes, MidstateDigest on SHA instructions is likely faster.
+   */
+  static final int MIN_VECTOR_LANES = 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The miner shared by blockchains that are not given one. */
+  private static Miner defaultMiner = null;
+
+  /** The number of workers that search at once. */
+  private int threads;
+
+  /** The pool that runs the workers. */
+  private ExecutorService pool;
+
+  /** Makes the hashers the workers use. */
+  private NonceHasher.Factory hashers;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new miner that searches with the given number of workers.
+   *
+   * @param threads1 The number of workers, at least one.
+   *
+   * @throws IllegalArgumentException if threads1 is less than one.
+   */
+  public Miner(int threads1) {
+    this(threads1, MidstateDigest::new);
+  } // Miner(int)
+
+  /**
+   * Create a new miner that searches with the given number of workers, each hashing with a
+   * hasher from the given factory (for example, HeaderHasher::new).
+   *
+   * @param threads1 The number of workers, at least one.
+   * @param hashers1 Makes the hashers the workers use.
+   *
+   * @throws IllegalArgumentException if threads1 is less than one.
+   */
+  public Miner(int threads1, NonceHasher.Factory hashers1) {
+    if (threads1 < 1) {
+      throw new IllegalArgumentException("Need at least one thread: `" + threads1 + "`");
+    } // if
+    this.threads = threads1;
+    this.pool = Executors.newCachedThreadPool((r) -> {
+      Thread worker = new Thread(r, "miner");
+      worker.setDaemon(true);
+      return worker;
+    });
+    this.hashers = hashers1;
+  } // Miner(int, NonceHasher.Factory)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Try every stride-th nonce starting at start until one is valid or the best nonce found so
+   * far is passed. Each worker has its own hasher, which can prepare the fixed part of the block
+   * once and reuse it, and its own buffer for results. Validators that can read raw bytes check
+   * that buffer directly; others get a copy for each attempt, since they may keep the Hash.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   * @param check The validator the hash must satisfy.
+   * @param start The first nonce to try.
+   * @param best The smallest valid nonce found by any worker.
+   * @param attempts Counts the nonces tried.
+   * @param stop Says whether to give up, checked every CHUNK nonces.
+   */
+  void work(int num, Transaction t, Hash prevHash, HashValidator check, long start,
+      AtomicLong best, LongAdder attempts, BooleanSupplier stop) {
+    NonceHasher hasher = hashers.create(num, t, prevHash);
+    if (hasher instanceof BatchNonceHasher) {
+      workBatches((BatchNonceHasher) hasher, check, start, best, attempts, stop);
+      return;
+    } // if
+    RawHashValidator raw = (check instanceof RawHashValidator) ? (RawHashValidator) check : null;
+    byte[] out = new byte[BlockHasher.HASH_BYTES];
+    int tried = 0;
+    for (long n = start; n >= 0 && n < best.get(); n += threads) {
+      hasher.hashInto(n, out, 0);
+      if ((raw != null) ? raw.isValid(out, 0) : check.isValid(Hash.wrap(out.clone()))) {
+        attempts.add(tried + 1);
+        best.accumulateAndGet(n, Math::min);
+        return;
+      } // if
+      if (++tried == CHUNK) {
+        attempts.add(tried);
+        tried = 0;
+        if (stop.getAsBoolean()) {
+          // A negative best stops every worker.
+          best.set(-1);
+        } // if
+      } // if
+    } // for
+    attempts.add(tried);
+  } // work(int, Transaction, Hash, HashValidator, long, AtomicLong, LongAdder, BooleanSupplier)
+
+  /**
+   * Try this worker's nonces a batch at a time. The lanes of a batch hold this worker's next few
+   * nonces in increasing order, and we check them in that order, so we still find the smallest
+   * valid one.
+   *
+   * @param hasher The hasher for the block.
+   * @param check The validator the hash must satisfy.
+   * @param start The first nonce to try.
+   * @param best The smallest valid nonce found by any worker.
+   * @param attempts Counts the nonces tried.
+   * @param stop Says whether to give up, checked about every CHUNK nonces.
+   */
+  void workBatches(BatchNonceHasher hasher, HashValidator check, long start, AtomicLong best,
+      LongAdder attempts, BooleanSupplier stop) {
+    RawHashValidator raw = (check instanceof RawHashValidator) ? (RawHashValidator) check : null;
+    int lanes = hasher.lanes();
+    byte[] out = new byte[lanes * BlockHasher.HASH_BYTES];
+    int tried = 0;
+    for (long n = start; n >= 0 && n < best.get(); n += (long) lanes * threads) {
+      hasher.hashBatch(n, threads, out);
+      for (int i = 0; i < lanes; i++) {
+        long nonce = n + (long) i * threads;
+        if (nonce < 0 || nonce >= best.get()) {
+          break;
+        } // if
+        boolean valid;
+        if (raw != null) {
+          valid = raw.isValid(out, i * BlockHasher.HASH_BYTES);
+        } else {
+          valid = check.isValid(Hash.wrap(Arrays.copyOfRange(out, i * BlockHasher.HASH_BYTES,
+              (i + 1) * BlockHasher.HASH_BYTES)));
+        } // if
+        if (valid) {
+          attempts.add(tried + i + 1);
+          best.accumulateAndGet(nonce, Math::min);
+          return;
+        } // if
+      } // for
+      tried += lanes;
+      if (tried >= CHUNK) {
+        attempts.add(tried);
+        tried = 0;
+        if (stop.getAsBoolean()) {
+          best.set(-1);
+        } // if
+      } // if
+    } // for
+    attempts.add(tried);
+  } // workBatches(BatchNonceHasher, HashValidator, long, AtomicLong, LongAdder, ...)
+
+  /**
+   * Run a task on one of the miner's threads.
+   *
+   * @param task The task to run.
+   */
+  void execute(Runnable task) {
+    pool.execute(task);
+  } // execute(Runnable)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Decide whether the default miner hashes with SIMD lanes. It does when the Vector API is
+   * available and either VECTOR_PROPERTY is "true" or, with the property unset, the machine has
+   * at least MIN_VECTOR_LANES lanes.
+   *
+   * @param choice The value of VECTOR_PROPERTY, or null if it is unset.
+   *
+   * @return true for the vector hasher, false for MidstateDigest.
+   */
+  static boolean useVector(String choice) {
+    if (!HeaderHasher.vectorAvailable()) {
+      return false;
+    } else if (choice != null) {
+      return Boolean.parseBoolean(choice);
+    } // if
+    return VectorHeaderHasher.LANES >= MIN_VECTOR_LANES;
+  } // useVector(String)
+
+  /**
+   * Get the miner used by blockchains that have not been given one. It uses one worker per
+   * available processor, hashing with MidstateDigest unless useVector picks SIMD lanes.
+   *
+   * @return the default miner.
+   */
+  public static synchronized Miner getDefault() {
+    if (defaultMiner == null) {
+      defaultMiner = new Miner(Runtime.getRuntime().availableProcessors(),
+          useVector(System.getProperty(VECTOR_PROPERTY))
+              ? VectorHeaderHasher::new
+              : MidstateDigest::new);
+    } // if
+    return defaultMiner;
+  } // getDefault()
+
+  /**
+   * Get the number of workers used in each search.
+   *
+   * @return the number of workers.
+   */
+  public int getThreads() {
+    return this.threads;
+  } // getThreads()
+
+  /**
+   * Find the smallest nonce that gives a block with the given contents a valid hash.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   * @param check The validator the hash must satisfy.
+   *
+   * @return the smallest valid nonce.
+   *
+   * @throws IllegalStateException if the search is interrupted.
+   */
+  public long search(int num, Transaction t, Hash prevHash, HashValidator check) {
+    return search(num, t, prevHash, check, new LongAdder(), () -> false);
+  } // search(int, Transaction, Hash, HashValidator)
+
+  /**
+   * Find the smallest nonce that gives a block with the given contents a valid hash, counting
+   * attempts as we go and giving up when asked to.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   * @param check The validator the hash must satisfy.
+   * @param attempts Counts the nonces tried.
+   * @param stop Says whether to give up. Workers check it every CHUNK nonces.
+   *
+   * @return the smallest valid nonce, or -1 if we gave up.
+   *
+   * @throws IllegalStateException if the search is interrupted.
+   */
+  public long search(int num, Transaction t, Hash prevHash, HashValidator check,
+      LongAdder attempts, BooleanSupplier stop) {
+    AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+    ArrayList<Future<?>> others = new ArrayList<Future<?>>(threads - 1);
+    for (int i = 1; i < threads; i++) {
+      long start = i;
+      others.add(pool.submit(
+          () -> work(num, t, prevHash, check, start, best, attempts, stop)));
+    } // for
+    try {
+      work(num, t, prevHash, check, 0, best, attempts, stop);
+      for (Future<?> other : others) {
+        other.get();
+      } // for
+    } catch (InterruptedException e) {
+      best.set(-1);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Mining interrupted.");
+    } catch (ExecutionException e) {
+      best.set(-1);
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } // if
+      throw new IllegalStateException("Mining failed.", e.getCause());
+    } catch (RuntimeException e) {
+      best.set(-1);
+      throw e;
+    } // try/catch
+    return best.get();
+  } // search(int, Transaction, Hash, HashValidator, LongAdder, BooleanSupplier)
+
+  /**
+   * Mine a block with the given contents, choosing the same nonce a serial search would.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   * @param check The validator the hash must satisfy.
+   *
+   * @return a new block whose hash meets the requirements of the validator.
+   */
+  public Block mine(int num, Transaction t, Hash prevHash, HashValidator check) {
+    return new Block(num, t, prevHash, search(num, t, prevHash, check));
+  } // mine(int, Transaction, Hash, HashValidator)
+
+  /**
+   * Stop the worker threads. The miner may not be used afterwards.
+   */
+  public void shutdown() {
+    pool.shutdownNow();
+  } // shutdown()
+} // class Miner
@@ -0,0 +1,115 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A block being mined in the background. The task completes with the mined block, and callers
+ * may cancel it or give it a timeout through the usual CompletableFuture methods. If another
+ * block is appended to the chain while we search, the search starts over on the new tip, since
+ * a block for the old tip could no longer be appended.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class MiningTask extends CompletableFuture<Block> implements Runnable {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The chain we are mining for. */
+  private BlockChain chain;
+
+  /** The transaction that goes in the block. */
+  private Transaction transaction;
+
+  /** The number of nonces tried so far. */
+  private LongAdder attempts = new LongAdder();
+
+  /** The number of times the chain changed under us. */
+  private volatile int restarts = 0;
+
+  /** When we started, in nanoseconds. */
+  private long started;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new task to mine a block for the end of a chain. The task does nothing until run.
+   *
+   * @param chain1 The chain to mine for.
+   * @param transaction1 The transaction that goes in the block.
+   */
+  public MiningTask(BlockChain chain1, Transaction transaction1) {
+    this.chain = chain1;
+    this.transaction = transaction1;
+    this.started = System.nanoTime();
+  } // MiningTask(BlockChain, Transaction)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Search until we find a block for the current end of the chain or someone completes or cancels
+   * the task.
+   */
+  public void run() {
+    try {
+      while (!isDone()) {
+        ChainSnapshot snap = chain.snapshot();
+        Block tip = snap.getTip();
+        int num = snap.getSize() + 1;
+        Hash prevHash = tip.getHash();
+        long nonce = chain.getMiner().search(num, transaction, prevHash, chain.check, attempts,
+            () -> isDone() || chain.snapshot().getTip() != tip);
+        if (nonce >= 0 && chain.snapshot().getTip() == tip) {
+          complete(new Block(num, transaction, prevHash, nonce));
+        } else if (!isDone()) {
+          restarts++;
+        } // if
+      } // while
+    } catch (RuntimeException e) {
+      completeExceptionally(e);
+    } // try/catch
+  } // run()
+
+  /**
+   * Get the transaction being mined.
+   *
+   * @return the transaction.
+   */
+  public Transaction getTransaction() {
+    return this.transaction;
+  } // getTransaction()
+
+  /**
+   * Get the number of nonces tried so far, across all workers and restarts.
+   *
+   * @return the number of attempts.
+   */
+  public long getAttempts() {
+    return attempts.sum();
+  } // getAttempts()
+
+  /**
+   * Get the number of times the search started over because the chain changed.
+   *
+   * @return the number of restarts.
+   */
+  public int getRestarts() {
+    return this.restarts;
+  } // getRestarts()
+
+  /**
+   * Get the average mining rate since the task was created.
+   *
+   * @return the number of hashes per second.
+   */
+  public double getHashesPerSecond() {
+    double seconds = (System.nanoTime() - started) / 1e9;
+    return (seconds > 0) ? getAttempts() / seconds : 0;
+  } // getHashesPerSecond()
+} // class MiningTask
@@ -1,7 +1,8 @@
 package edu.grinnell.csc207.blockchains;
 
 /**
- * A node of linked lists. Contains a block.
+ * A node of linked lists. Contains a block. The nodes of a chain are views of a snapshot of its
+ * blocks, so the next node is looked up by height rather than stored.
  */
 public class Node {
   /**
@@ -10,9 +11,14 @@ public class Node {
   Block block;
 
   /**
-   * The next pointer.
+   * The blocks the block came from, or null if the node stands alone.
    */
-  Node next;
+  BlockStorage.View store;
+
+  /**
+   * The height of the block in the store.
+   */
+  int height;
 
   /**
    * Creates a new node with the provided block.
@@ -21,9 +27,22 @@ public class Node {
    */
   public Node(Block block1) {
     this.block = block1;
-    this.next = null;
+    this.store = null;
+    this.height = 0;
   } // Node(Block)
 
+  /**
+   * Creates a node for the block at a given height of a view.
+   *
+   * @param store1 the view
+   * @param height1 the height of the block
+   */
+  Node(BlockStorage.View store1, int height1) {
+    this.block = store1.get(height1);
+    this.store = store1;
+    this.height = height1;
+  } // Node(BlockStorage.View, int)
+
   /**
    * Returns the block of this node.
    *
@@ -36,9 +55,13 @@ public class Node {
   /**
    * Returns the next node.
    *
-   * @return the next node
+   * @return the next node, or null if this is the last node
    */
   public Node getNext() {
-    return this.next;
+    int next = this.height + 1;
+    if (store == null || next >= store.size()) {
+      return null;
+    } // if
+    return new Node(store, next);
   } // getNext()
 } // class Node
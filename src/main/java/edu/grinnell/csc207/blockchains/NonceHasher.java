@@ -0,0 +1,47 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * Things that hash one block for many different nonces, as miners do.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public interface NonceHasher {
+  /**
+   * Compute the hash of the block with the given nonce into a buffer.
+   *
+   * @param nonce The nonce to try.
+   * @param out Where to put the hash.
+   * @param offset Where in out the hash starts. There must be 32 bytes available.
+   */
+  void hashInto(long nonce, byte[] out, int offset);
+
+  /**
+   * Compute the hash of the block with the given nonce.
+   *
+   * @param nonce The nonce to try.
+   *
+   * @return the hash.
+   */
+  default Hash hash(long nonce) {
+    byte[] result = new byte[BlockHasher.HASH_BYTES];
+    hashInto(nonce, result, 0);
+    return Hash.wrap(result);
+  } // hash(long)
+
+  /**
+   * Things that make nonce hashers for blocks.
+   */
+  interface Factory {
+    /**
+     * Make a hasher for a block with the given contents.
+     *
+     * @param num The number of the block.
+     * @param t The transaction for the block.
+     * @param prevHash The hash of the previous block.
+     *
+     * @return the new hasher.
+     */
+    NonceHasher create(int num, Transaction t, Hash prevHash);
+  } // interface Factory
+} // interface NonceHasher
@@ -0,0 +1,385 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The heights of the blocks that involve each user, as source or target. Each user's heights
+ * are kept in increasing order as varint gaps from the previous height, so a user with many
+ * transactions costs a byte or two per transaction. Heights are added and removed only at the
+ * end, as blocks are appended to and removed from a chain. The empty name, used for deposits,
+ * is not indexed.
+ *
+ * Every CHECKPOINT_INTERVAL postings, we also note the user's balance, so that their balance at
+ * any height takes a binary search and the replay of at most that many of their blocks.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class PostingsIndex {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The room we make for a new user's postings. */
+  static final int INITIAL_BYTES = 8;
+
+  /** The number of postings between balance checkpoints. */
+  static final int CHECKPOINT_INTERVAL = 32;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The ids of the users. */
+  private UserIds ids = new UserIds();
+
+  /** The encoded postings, by id. */
+  private byte[][] postings = new byte[UserIds.INITIAL_CAPACITY][];
+
+  /** The number of bytes used in each user's postings. */
+  private int[] lengths = new int[UserIds.INITIAL_CAPACITY];
+
+  /** The last height posted for each user, or -1 for none. */
+  private int[] lastHeights = new int[UserIds.INITIAL_CAPACITY];
+
+  /** The number of heights posted for each user. */
+  private int[] counts = new int[UserIds.INITIAL_CAPACITY];
+
+  /** The balance of each user after their last posting. */
+  private long[] running = new long[UserIds.INITIAL_CAPACITY];
+
+  /**
+   * The checkpoints of each user, two longs apiece: the height of the posting in the high word
+   * and the end of its bytes in the low word, then the balance after it.
+   */
+  private long[][] checkpoints = new long[UserIds.INITIAL_CAPACITY][];
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Post a height for one user.
+   *
+   * @param name The user.
+   * @param height The height, which must be above the last one posted for them.
+   * @param delta The change to their balance at that height.
+   */
+  void post(String name, int height, long delta) {
+    if (name == null || name.isEmpty()) {
+      return;
+    } // if
+    int id = ids.intern(name);
+    if (id == postings.length) {
+      postings = Arrays.copyOf(postings, 2 * id);
+      lengths = Arrays.copyOf(lengths, 2 * id);
+      lastHeights = Arrays.copyOf(lastHeights, 2 * id);
+      counts = Arrays.copyOf(counts, 2 * id);
+      running = Arrays.copyOf(running, 2 * id);
+      checkpoints = Arrays.copyOf(checkpoints, 2 * id);
+    } // if
+    if (postings[id] == null) {
+      postings[id] = new byte[INITIAL_BYTES];
+      lastHeights[id] = -1;
+      checkpoints[id] = new long[0];
+    } // if
+    if (lengths[id] + BlockEncoder.MAX_VARINT_BYTES > postings[id].length) {
+      postings[id] = Arrays.copyOf(postings[id], 2 * postings[id].length);
+    } // if
+    int gap = height - lastHeights[id];
+    byte[] bytes = postings[id];
+    int at = lengths[id];
+    while ((gap & ~0x7f) != 0) {
+      bytes[at++] = (byte) ((gap & 0x7f) | 0x80);
+      gap >>>= 7;
+    } // while
+    bytes[at++] = (byte) gap;
+    lengths[id] = at;
+    lastHeights[id] = height;
+    running[id] += delta;
+    if (++counts[id] % CHECKPOINT_INTERVAL == 0) {
+      int n = 2 * (counts[id] / CHECKPOINT_INTERVAL);
+      if (checkpoints[id].length < n) {
+        checkpoints[id] = Arrays.copyOf(checkpoints[id], Math.max(n, 2 * checkpoints[id].length));
+      } // if
+      checkpoints[id][n - 2] = ((long) height << 32) | at;
+      checkpoints[id][n - 1] = running[id];
+    } // if
+  } // post(String, int, long)
+
+  /**
+   * Remove a height from the end of one user's postings, if it is there.
+   *
+   * @param name The user.
+   * @param height The height.
+   * @param delta The change to their balance at that height.
+   */
+  void unpost(String name, int height, long delta) {
+    if (name == null || name.isEmpty()) {
+      return;
+    } // if
+    int id = ids.find(name);
+    if (id < 0 || lastHeights[id] != height) {
+      return;
+    } // if
+    byte[] bytes = postings[id];
+    // Every byte of a varint but the last has its high bit set, so the last varint starts just
+    // after the previous byte whose high bit is clear.
+    int start = lengths[id] - 1;
+    while (start > 0 && (bytes[start - 1] & 0x80) != 0) {
+      start--;
+    } // while
+    int gap = 0;
+    for (int i = lengths[id] - 1; i >= start; i--) {
+      gap = (gap << 7) | (bytes[i] & 0x7f);
+    } // for
+    lengths[id] = start;
+    lastHeights[id] = height - gap;
+    counts[id]--;
+    running[id] -= delta;
+  } // unpost(String, int, long)
+
+  /**
+   * Find how much a transaction changes someone's balance.
+   *
+   * @param t The transaction.
+   * @param name The user.
+   *
+   * @return the change.
+   */
+  static long delta(Transaction t, String name) {
+    long delta = 0;
+    if (name.equals(t.getTarget())) {
+      delta += t.getAmount();
+    } // if
+    if (name.equals(t.getSource())) {
+      delta -= t.getAmount();
+    } // if
+    return delta;
+  } // delta(Transaction, String)
+
+  /**
+   * Find how much a block changes someone's balance.
+   *
+   * @param blk The block.
+   * @param name The user.
+   *
+   * @return the change.
+   */
+  static long delta(Block blk, String name) {
+    if (!blk.hasPayload()) {
+      return delta(blk.getTransaction(), name);
+    } // if
+    long delta = 0;
+    for (Transaction t : blk.getTransactions()) {
+      delta += delta(t, name);
+    } // for
+    return delta;
+  } // delta(Block, String)
+
+  /**
+   * Find how much a block with a payload changes the balance of each user in it.
+   *
+   * @param blk The block.
+   *
+   * @return the changes, by user, in the order the users first appear.
+   */
+  static Map<String, Long> deltas(Block blk) {
+    LinkedHashMap<String, Long> deltas = new LinkedHashMap<String, Long>();
+    for (Transaction t : blk.getTransactions()) {
+      if (t.getSource() != null) {
+        deltas.merge(t.getSource(), -(long) t.getAmount(), Long::sum);
+      } // if
+      if (t.getTarget() != null) {
+        deltas.merge(t.getTarget(), (long) t.getAmount(), Long::sum);
+      } // if
+    } // for
+    return deltas;
+  } // deltas(Block)
+
+  /**
+   * Find how many of a user's checkpoints are at or below a height. Only the checkpoints of
+   * postings still posted count.
+   *
+   * @param id The id of the user.
+   * @param height The height.
+   *
+   * @return the number of checkpoints; the last of them is at index 2 * (that number - 1).
+   */
+  int checkpointsTo(int id, int height) {
+    long[] points = checkpoints[id];
+    int lo = 0;
+    int hi = counts[id] / CHECKPOINT_INTERVAL;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if ((int) (points[2 * mid - 2] >>> 32) <= height) {
+        lo = mid;
+      } else {
+        hi = mid - 1;
+      } // if
+    } // while
+    return lo;
+  } // checkpointsTo(int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Record the block at a height, which must be above every height recorded so far.
+   *
+   * @param t The transaction in the block.
+   * @param height The height of the block.
+   */
+  public void add(Transaction t, int height) {
+    if (t.getSource() != null && t.getSource().equals(t.getTarget())) {
+      post(t.getSource(), height, 0);
+    } else {
+      post(t.getSource(), height, -(long) t.getAmount());
+      post(t.getTarget(), height, t.getAmount());
+    } // if
+  } // add(Transaction, int)
+
+  /**
+   * Forget the block at the greatest height recorded.
+   *
+   * @param t The transaction in the block.
+   * @param height The height of the block.
+   */
+  public void remove(Transaction t, int height) {
+    if (t.getSource() != null && t.getSource().equals(t.getTarget())) {
+      unpost(t.getSource(), height, 0);
+    } else {
+      unpost(t.getTarget(), height, t.getAmount());
+      unpost(t.getSource(), height, -(long) t.getAmount());
+    } // if
+  } // remove(Transaction, int)
+
+  /**
+   * Record a block at a height, which must be above every height recorded so far. Each user
+   * in the block gets one posting however many of its transactions involve them.
+   *
+   * @param blk The block.
+   * @param height The height of the block.
+   */
+  public void add(Block blk, int height) {
+    if (!blk.hasPayload()) {
+      add(blk.getTransaction(), height);
+      return;
+    } // if
+    for (Map.Entry<String, Long> e : deltas(blk).entrySet()) {
+      post(e.getKey(), height, e.getValue());
+    } // for
+  } // add(Block, int)
+
+  /**
+   * Forget the block at the greatest height recorded.
+   *
+   * @param blk The block.
+   * @param height The height of the block.
+   */
+  public void remove(Block blk, int height) {
+    if (!blk.hasPayload()) {
+      remove(blk.getTransaction(), height);
+      return;
+    } // if
+    for (Map.Entry<String, Long> e : deltas(blk).entrySet()) {
+      unpost(e.getKey(), height, e.getValue());
+    } // for
+  } // remove(Block, int)
+
+  /**
+   * Count the blocks that involve a user.
+   *
+   * @param name The user.
+   *
+   * @return the number of blocks.
+   */
+  public int count(String name) {
+    int id = ids.find(name);
+    return (id < 0) ? 0 : counts[id];
+  } // count(String)
+
+  /**
+   * Get the heights of some of the blocks that involve a user, in increasing order. We start
+   * decoding at the last checkpoint below fromHeight, so a page costs at most
+   * CHECKPOINT_INTERVAL postings more than it returns.
+   *
+   * @param name The user.
+   * @param fromHeight The least height to include.
+   * @param limit The most heights to return.
+   *
+   * @return the heights.
+   */
+  public int[] heights(String name, int fromHeight, int limit) {
+    int id = ids.find(name);
+    if (id < 0 || limit <= 0) {
+      return new int[0];
+    } // if
+    int[] result = new int[Math.min(limit, counts[id])];
+    int found = 0;
+    byte[] bytes = postings[id];
+    // Start just after the last checkpoint below fromHeight, as balanceAt does.
+    int n = checkpointsTo(id, fromHeight - 1);
+    long[] points = checkpoints[id];
+    int height = (n == 0) ? -1 : (int) (points[2 * n - 2] >>> 32);
+    int at = (n == 0) ? 0 : (int) points[2 * n - 2];
+    while (at < lengths[id] && found < result.length) {
+      int gap = 0;
+      int shift = 0;
+      int b;
+      do {
+        b = bytes[at++];
+        gap |= (b & 0x7f) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      height += gap;
+      if (height >= fromHeight) {
+        result[found++] = height;
+      } // if
+    } // while
+    return (found == result.length) ? result : Arrays.copyOf(result, found);
+  } // heights(String, int, int)
+
+  /**
+   * Find a user's balance just after the block at a height. We start from the last checkpoint
+   * at or below the height and replay the user's blocks from there.
+   *
+   * @param name The user.
+   * @param height The height.
+   * @param store The blocks that were indexed, to read the amounts from.
+   *
+   * @return the balance.
+   */
+  public long balanceAt(String name, int height, BlockStorage store) {
+    int id = ids.find(name);
+    if (id < 0 || height < 0) {
+      return 0;
+    } // if
+    long[] points = checkpoints[id];
+    int lo = checkpointsTo(id, height);
+    int at = (lo == 0) ? 0 : (int) points[2 * lo - 2];
+    int posted = (lo == 0) ? -1 : (int) (points[2 * lo - 2] >>> 32);
+    long balance = (lo == 0) ? 0 : points[2 * lo - 1];
+
+    byte[] bytes = postings[id];
+    while (at < lengths[id]) {
+      int gap = 0;
+      int shift = 0;
+      int b;
+      do {
+        b = bytes[at++];
+        gap |= (b & 0x7f) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      posted += gap;
+      if (posted > height) {
+        break;
+      } // if
+      balance += delta(store.get(posted), name);
+    } // while
+    return balance;
+  } // balanceAt(String, int, BlockStorage)
+} // class PostingsIndex
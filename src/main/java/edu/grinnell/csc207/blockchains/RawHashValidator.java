@@ -0,0 +1,21 @@
+package edu.grinnell.csc207.blockchains;
+
+/**
+ * Hash validators that can also check a hash sitting in an array, so miners can test each
+ * attempt without wrapping it in a Hash.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public interface RawHashValidator extends HashValidator {
+  /**
+   * Determine if a 32-byte hash meets some criterion. The array is reused for the next attempt,
+   * so the validator must not keep it.
+   *
+   * @param hash The array holding the hash.
+   * @param offset Where the hash starts in that array.
+   *
+   * @return true if the hash is valid and false otherwise.
+   */
+  boolean isValid(byte[] hash, int offset);
+} // interface RawHashValidator
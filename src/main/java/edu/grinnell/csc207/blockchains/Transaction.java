@@ -1,5 +1,7 @@
 package edu.grinnell.csc207.blockchains;
 
+import java.util.Objects;
+
 /**
  * A simple transaction.
  *
@@ -25,6 +27,22 @@ public class Transaction {
    */
   private int amount;
 
+  /**
+   * The encoded source, computed when first hashed.
+   */
+  private byte[] sourceBytes = null;
+
+  /**
+   * The encoded target, computed when first hashed.
+   */
+  private byte[] targetBytes = null;
+
+  /**
+   * For the stand-in for the transactions of a block, the root of their Merkle tree; otherwise
+   * null.
+   */
+  private Hash root = null;
+
   // +--------------+------------------------------------------------
   // | Constructors |
   // +--------------+
@@ -43,6 +61,26 @@ public class Transaction {
     this.amount = amt;
   } // Transaction(src)
 
+  /**
+   * Make the stand-in that a block with many transactions hashes in place of a transaction. Its
+   * amount is the number of transactions, and it hashes a byte that no UTF-8 source starts with
+   * followed by the Merkle root where a source would go, so the block hash commits to every
+   * transaction without hashing each one.
+   *
+   * @param root1 The root of the Merkle tree of the transactions.
+   * @param count The number of transactions.
+   *
+   * @return the stand-in.
+   */
+  static Transaction commitment(Hash root1, int count) {
+    Transaction t = new Transaction("merkle:" + root1, null, count);
+    t.root = root1;
+    t.sourceBytes = new byte[root1.contents.length + 1];
+    t.sourceBytes[0] = (byte) 0xff;
+    System.arraycopy(root1.contents, 0, t.sourceBytes, 1, root1.contents.length);
+    return t;
+  } // commitment(Hash, int)
+
   // +---------+-----------------------------------------------------
   // | Methods |
   // +---------+
@@ -74,6 +112,41 @@ public class Transaction {
     return this.amount;
   } // getAmount()
 
+  /**
+   * Get the Merkle root, if this stands in for the transactions of a block.
+   *
+   * @return the root, or null for an ordinary transaction.
+   */
+  public Hash getMerkleRoot() {
+    return this.root;
+  } // getMerkleRoot()
+
+  /**
+   * Get the bytes of the source that go into block hashes. They are encoded once and shared, so
+   * callers must not change them.
+   *
+   * @return the encoded source.
+   */
+  byte[] sourceBytes() {
+    if (this.sourceBytes == null) {
+      this.sourceBytes = this.source.getBytes();
+    } // if
+    return this.sourceBytes;
+  } // sourceBytes()
+
+  /**
+   * Get the bytes of the target that go into block hashes. They are encoded once and shared, so
+   * callers must not change them.
+   *
+   * @return the encoded target.
+   */
+  byte[] targetBytes() {
+    if (this.targetBytes == null) {
+      this.targetBytes = this.target.getBytes();
+    } // if
+    return this.targetBytes;
+  } // targetBytes()
+
   /**
    * Convert to string form.
    *
@@ -114,7 +187,7 @@ public class Transaction {
    * @return true if the other object has the same source, target, and value.
    */
   public boolean equals(Transaction other) {
-    return other.source.equals(this.source) && other.target.equals(this.target)
+    return Objects.equals(other.source, this.source) && Objects.equals(other.target, this.target)
         && other.amount == this.amount;
   } // equals(Transaction)
 } // class Transaction
@@ -0,0 +1,152 @@
+package edu.grinnell.csc207.blockchains;
+
+import java.util.Arrays;
+
+/**
+ * Dense ids for user names. Each name gets the next id the first time it is interned and keeps
+ * it for good, so tables of balances can be arrays indexed by id. Names are found through an
+ * open-addressing table of ids, which allocates nothing per lookup.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class UserIds {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The number of names we make room for at first. */
+  static final int INITIAL_CAPACITY = 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The names, by id. */
+  private String[] names = new String[INITIAL_CAPACITY];
+
+  /** The table: ids plus one, or 0 for empty slots. */
+  private int[] slots = new int[2 * INITIAL_CAPACITY];
+
+  /** The number of names. */
+  private int size = 0;
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get the slot where the search for a name starts.
+   *
+   * @param name The name.
+   * @param mask One less than the size of the table.
+   *
+   * @return the slot.
+   */
+  static int home(String name, int mask) {
+    int h = name.hashCode() * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  } // home(String, int)
+
+  /**
+   * Find the slot that holds a name, or the empty slot where it would go.
+   *
+   * @param name The name.
+   *
+   * @return the slot.
+   */
+  int slot(String name) {
+    int mask = slots.length - 1;
+    int slot = home(name, mask);
+    while (slots[slot] != 0 && !names[slots[slot] - 1].equals(name)) {
+      slot = (slot + 1) & mask;
+    } // while
+    return slot;
+  } // slot(String)
+
+  /**
+   * Double the size of the table.
+   */
+  void grow() {
+    slots = new int[slots.length * 2];
+    int mask = slots.length - 1;
+    for (int id = 0; id < size; id++) {
+      int slot = home(names[id], mask);
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      } // while
+      slots[slot] = id + 1;
+    } // for
+  } // grow()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Find the id of a name.
+   *
+   * @param name The name.
+   *
+   * @return its id, or -1 if it has none.
+   */
+  public int find(String name) {
+    return slots[slot(name)] - 1;
+  } // find(String)
+
+  /**
+   * Get the id of a name, giving it the next id if it has none.
+   *
+   * @param name The name.
+   *
+   * @return its id.
+   */
+  public int intern(String name) {
+    int slot = slot(name);
+    if (slots[slot] != 0) {
+      return slots[slot] - 1;
+    } // if
+    if (2 * (size + 1) > slots.length) {
+      grow();
+      slot = slot(name);
+    } // if
+    if (size == names.length) {
+      names = Arrays.copyOf(names, 2 * size);
+    } // if
+    names[size] = name;
+    slots[slot] = ++size;
+    return size - 1;
+  } // intern(String)
+
+  /**
+   * Get the name with an id.
+   *
+   * @param id The id, between 0 (inclusive) and size() (exclusive).
+   *
+   * @return the name.
+   */
+  public String name(int id) {
+    if (id < 0 || id >= size) {
+      throw new IndexOutOfBoundsException(id);
+    } // if
+    return names[id];
+  } // name(int)
+
+  /**
+   * Get the number of names.
+   *
+   * @return the number of names, which is one more than the largest id.
+   */
+  public int size() {
+    return this.size;
+  } // size()
+
+  /**
+   * Forget every name.
+   */
+  public void clear() {
+    Arrays.fill(names, 0, size, null);
+    Arrays.fill(slots, 0);
+    size = 0;
+  } // clear()
+} // class UserIds
@@ -0,0 +1,243 @@
+package edu.grinnell.csc207.blockchains;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A HeaderHasher that hashes one nonce per SIMD lane with the (incubating) Vector API, so a
+ * single core computes eight hashes at once with AVX2 or sixteen with AVX-512. The chunks before
+ * the nonce and the rounds that precede it are shared with HeaderHasher; only the rest of the
+ * compression runs on vectors.
+ *
+ * <p>This class needs the jdk.incubator.vector module at run time. Use HeaderHasher.factory()
+ * rather than naming it directly, since that falls back to scalar hashing when the module is
+ * missing.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class VectorHeaderHasher extends HeaderHasher implements BatchNonceHasher {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The widest vectors this machine handles well. */
+  static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /** The number of lanes in those vectors. */
+  static final int LANES = SPECIES.length();
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The first word of the tail that holds part of the nonce. */
+  private int firstWord;
+
+  /** The word after the last one that holds part of the nonce. */
+  private int endWord;
+
+  /** The words of the tail that hold the nonce, one row per word and one column per lane. */
+  private int[][] nonceWords;
+
+  /** A copy of the tail for filling in one lane's nonce. */
+  private byte[] laneTail;
+
+  /** The message schedule of a chunk, word-major: word i of lane j is at i * LANES + j. */
+  private int[] schedule = new int[ROUNDS * LANES];
+
+  /** The round constants plus the schedule of a constant second chunk. */
+  private int[] constantSchedule = null;
+
+  /** The working variables, variable-major like the schedule. */
+  private int[] vars = new int[STATE_WORDS * LANES];
+
+  /** The state between chunks, variable-major like the schedule. */
+  private int[] state = new int[STATE_WORDS * LANES];
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Prepare to hash a block with the given contents.
+   *
+   * @param num The number of the block.
+   * @param t The transaction for the block.
+   * @param prevHash The hash of the previous block.
+   */
+  public VectorHeaderHasher(int num, Transaction t, Hash prevHash) {
+    this(prefix(num, t, prevHash));
+  } // VectorHeaderHasher(int, Transaction, Hash)
+
+  /**
+   * Prepare to hash the given bytes followed by an eight-byte nonce.
+   *
+   * @param prefix The bytes that come before the nonce.
+   */
+  public VectorHeaderHasher(byte[] prefix) {
+    super(prefix);
+    this.firstWord = nonceAt / Integer.BYTES;
+    this.endWord = (nonceAt + Long.BYTES + Integer.BYTES - 1) / Integer.BYTES;
+    this.nonceWords = new int[endWord - firstWord][LANES];
+    this.laneTail = tail.clone();
+    if (w2 != null && !nonceInSecond) {
+      this.constantSchedule = new int[ROUNDS];
+      for (int i = 0; i < ROUNDS; i++) {
+        constantSchedule[i] = K[i] + w2[i];
+      } // for
+    } // if
+  } // VectorHeaderHasher(byte[])
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Rotate every lane right.
+   *
+   * @param v The lanes to rotate.
+   * @param n How far to rotate them.
+   *
+   * @return the rotated lanes.
+   */
+  static IntVector ror(IntVector v, int n) {
+    return v.lanewise(VectorOperators.ROR, n);
+  } // ror(IntVector, int)
+
+  /**
+   * Fill in the schedule of one tail chunk for every lane.
+   *
+   * @param chunk Which tail chunk, 0 or 1.
+   */
+  void schedule(int chunk) {
+    for (int i = 0; i < CHUNK_WORDS; i++) {
+      int w = chunk * CHUNK_WORDS + i;
+      IntVector v = (w >= firstWord && w < endWord)
+          ? IntVector.fromArray(SPECIES, nonceWords[w - firstWord], 0)
+          : IntVector.broadcast(SPECIES, word(tail, w * Integer.BYTES));
+      v.intoArray(schedule, i * LANES);
+    } // for
+    for (int i = CHUNK_WORDS; i < ROUNDS; i++) {
+      IntVector x = IntVector.fromArray(SPECIES, schedule, (i - 15) * LANES);
+      IntVector y = IntVector.fromArray(SPECIES, schedule, (i - 2) * LANES);
+      IntVector s0 = ror(x, 7).lanewise(VectorOperators.XOR, ror(x, 18))
+          .lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHR, 3));
+      IntVector s1 = ror(y, 17).lanewise(VectorOperators.XOR, ror(y, 19))
+          .lanewise(VectorOperators.XOR, y.lanewise(VectorOperators.LSHR, 10));
+      IntVector.fromArray(SPECIES, schedule, (i - 16) * LANES).add(s0)
+          .add(IntVector.fromArray(SPECIES, schedule, (i - 7) * LANES)).add(s1)
+          .intoArray(schedule, i * LANES);
+    } // for
+  } // schedule(int)
+
+  /**
+   * Run rounds from through 63 of a compression in every lane.
+   *
+   * @param from The first round to run.
+   * @param constant The round constants plus a schedule shared by every lane, or null to use
+   *        the per-lane schedule.
+   */
+  void rounds(int from, int[] constant) {
+    IntVector a = IntVector.fromArray(SPECIES, vars, 0);
+    IntVector b = IntVector.fromArray(SPECIES, vars, LANES);
+    IntVector c = IntVector.fromArray(SPECIES, vars, 2 * LANES);
+    IntVector d = IntVector.fromArray(SPECIES, vars, 3 * LANES);
+    IntVector e = IntVector.fromArray(SPECIES, vars, 4 * LANES);
+    IntVector f = IntVector.fromArray(SPECIES, vars, 5 * LANES);
+    IntVector g = IntVector.fromArray(SPECIES, vars, 6 * LANES);
+    IntVector h = IntVector.fromArray(SPECIES, vars, 7 * LANES);
+    for (int i = from; i < ROUNDS; i++) {
+      IntVector s1 = ror(e, 6).lanewise(VectorOperators.XOR, ror(e, 11))
+          .lanewise(VectorOperators.XOR, ror(e, 25));
+      IntVector ch = e.and(f).lanewise(VectorOperators.XOR, e.not().and(g));
+      IntVector t1 = h.add(s1).add(ch);
+      if (constant == null) {
+        t1 = t1.add(K[i]).add(IntVector.fromArray(SPECIES, schedule, i * LANES));
+      } else {
+        t1 = t1.add(constant[i]);
+      } // if
+      IntVector s0 = ror(a, 2).lanewise(VectorOperators.XOR, ror(a, 13))
+          .lanewise(VectorOperators.XOR, ror(a, 22));
+      IntVector maj = a.and(b).lanewise(VectorOperators.XOR, a.and(c))
+          .lanewise(VectorOperators.XOR, b.and(c));
+      h = g;
+      g = f;
+      f = e;
+      e = d.add(t1);
+      d = c;
+      c = b;
+      b = a;
+      a = t1.add(s0).add(maj);
+    } // for
+    a.intoArray(vars, 0);
+    b.intoArray(vars, LANES);
+    c.intoArray(vars, 2 * LANES);
+    d.intoArray(vars, 3 * LANES);
+    e.intoArray(vars, 4 * LANES);
+    f.intoArray(vars, 5 * LANES);
+    g.intoArray(vars, 6 * LANES);
+    h.intoArray(vars, 7 * LANES);
+  } // rounds(int, int[])
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Determine how many nonces each batch hashes.
+   *
+   * @return the number of nonces in a batch.
+   */
+  public int lanes() {
+    return LANES;
+  } // lanes()
+
+  /**
+   * Hash the nonces first, first + stride, first + 2 * stride, and so on, one per lane.
+   *
+   * @param first The nonce for the first lane.
+   * @param stride The difference between the nonces of neighboring lanes.
+   * @param out Where to put the hashes, 32 bytes per lane, in lane order.
+   */
+  public void hashBatch(long first, long stride, byte[] out) {
+    for (int lane = 0; lane < LANES; lane++) {
+      Block.putLong(laneTail, nonceAt, first + lane * stride);
+      for (int w = firstWord; w < endWord; w++) {
+        nonceWords[w - firstWord][lane] = word(laneTail, w * Integer.BYTES);
+      } // for
+    } // for
+
+    // First chunk: pick up after the rounds shared by every nonce.
+    schedule(0);
+    for (int i = 0; i < STATE_WORDS; i++) {
+      IntVector.broadcast(SPECIES, preRounds[i]).intoArray(vars, i * LANES);
+    } // for
+    rounds(firstNonceWord, null);
+    for (int i = 0; i < STATE_WORDS; i++) {
+      IntVector.fromArray(SPECIES, vars, i * LANES).add(midstate[i])
+          .intoArray(state, i * LANES);
+    } // for
+
+    // Second chunk, if any.
+    if (w2 != null) {
+      if (constantSchedule == null) {
+        schedule(1);
+      } // if
+      System.arraycopy(state, 0, vars, 0, state.length);
+      rounds(0, constantSchedule);
+      for (int i = 0; i < STATE_WORDS; i++) {
+        IntVector.fromArray(SPECIES, vars, i * LANES)
+            .add(IntVector.fromArray(SPECIES, state, i * LANES)).intoArray(state, i * LANES);
+      } // for
+    } // if
+
+    for (int lane = 0; lane < LANES; lane++) {
+      for (int i = 0; i < STATE_WORDS; i++) {
+        Block.putInt(out, lane * BlockHasher.HASH_BYTES + i * Integer.BYTES,
+            state[i * LANES + lane]);
+      } // for
+    } // for
+  } // hashBatch(long, long, byte[])
+} // class VectorHeaderHasher
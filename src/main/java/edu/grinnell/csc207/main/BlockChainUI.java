@@ -2,15 +2,20 @@ package edu.grinnell.csc207.main;
 
 import edu.grinnell.csc207.blockchains.Block;
 import edu.grinnell.csc207.blockchains.BlockChain;
+import edu.grinnell.csc207.blockchains.DifficultyValidator;
 import edu.grinnell.csc207.blockchains.HashValidator;
+import edu.grinnell.csc207.blockchains.MappedBlockLog;
+import edu.grinnell.csc207.blockchains.Mempool;
 import edu.grinnell.csc207.blockchains.Transaction;
 
 import edu.grinnell.csc207.util.IOUtils;
 
 import java.io.PrintWriter;
 import java.util.Iterator;
+import java.util.List;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
 
 /**
  * A simple UI for our BlockChain class.
@@ -42,6 +47,8 @@ public class BlockChainUI {
     pen.println("""
         Valid commands:
           mine: discovers the nonce for a given transaction
+          submit: queues a transaction to be mined later
+          pending: mines every queued transaction into one block and appends it
           append: appends a new block onto the end of the chain
           remove: removes the last block from the end of the chain
           check: checks that the block chain is valid
@@ -60,25 +67,19 @@ public class BlockChainUI {
   /**
    * Run the UI.
    *
-   * @param args Command-line arguments (currently ignored).
+   * @param args Command-line arguments: optionally, a directory in which to keep the chain
+   *        between runs.
    */
   public static void main(String[] args) throws Exception {
     PrintWriter pen = new PrintWriter(System.out, true);
     BufferedReader eyes = new BufferedReader(new InputStreamReader(System.in));
 
     // Set up our blockchain.
-    HashValidator validator = (h) -> {
-      if (h.length() < VALIDATOR_BYTES) {
-        return false;
-      } // if
-      for (int v = 0; v < VALIDATOR_BYTES; v++) {
-        if (h.get(v) != 0) {
-          return false;
-        } // if
-      } // for
-      return true;
-    };
-    BlockChain chain = new BlockChain(validator);
+    HashValidator validator = DifficultyValidator.leadingZeroBytes(VALIDATOR_BYTES);
+    BlockChain chain = (args.length > 0)
+        ? new BlockChain(validator, new MappedBlockLog(Paths.get(args[0])))
+        : new BlockChain(validator);
+    Mempool pool = new Mempool(chain);
 
     instructions(pen);
 
@@ -119,8 +120,8 @@ public class BlockChainUI {
         case "balance":
           pen.printf("User: ");
           String user = eyes.readLine();
-          if (chain.getBalances().containsKey(user)) {
-            pen.printf(user + "'s balance is " + chain.getBalances().get(user));
+          if (chain.isUser(user)) {
+            pen.printf(user + "'s balance is " + chain.balance(user));
           } else {
             pen.printf(user + " does not exist");
           } // if
@@ -130,7 +131,9 @@ public class BlockChainUI {
           Iterator<Block> blocks = chain.blocks();
           while (blocks.hasNext()) {
             Block curr = blocks.next();
-            if (curr.getTransaction().getSource() == null) {
+            if (curr.hasPayload()) {
+              pen.printf("%s", curr.toString());
+            } else if (curr.getTransaction().getSource() == null) {
               pen.printf(
                   "Block %d (Transactions: [Deposit, Target: %s, Amount: %d], "
                       + "Nonce: %d, prevHash: %s, hash: %s)",
@@ -168,6 +171,16 @@ public class BlockChainUI {
           pen.println("\nUse nonce: " + b.getNonce());
           break;
 
+        case "pending":
+          List<Transaction> queued = pool.drain(Integer.MAX_VALUE);
+          if (queued.isEmpty()) {
+            pen.printf("No transactions waiting.");
+          } else {
+            chain.append(chain.mine(queued));
+            pen.printf("Mined %d queued transactions into one block.", queued.size());
+          } // if
+          break;
+
         case "quit":
           done = true;
           break;
@@ -180,6 +193,17 @@ public class BlockChainUI {
           } // if
           break;
 
+        case "submit":
+          source = IOUtils.readLine(pen, eyes, "Source (return for deposit): ");
+          target = IOUtils.readLine(pen, eyes, "Target: ");
+          amount = IOUtils.readInt(pen, eyes, "Amount: ");
+          if (pool.submit(new Transaction(source, target, amount))) {
+            pen.printf("Queued; %d transactions waiting.", pool.size());
+          } else {
+            pen.printf("Transaction rejected: not enough money once the queue is mined.");
+          } // if
+          break;
+
         case "transactions":
           Iterator<Transaction> transactions = chain.iterator();
           while (transactions.hasNext()) {
@@ -206,6 +230,7 @@ public class BlockChainUI {
       } // switch
     } // while
 
+    chain.getStorage().close();
     pen.printf("\nGoodbye\n");
     eyes.close();
     pen.close();
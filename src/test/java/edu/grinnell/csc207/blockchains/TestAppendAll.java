@@ -0,0 +1,95 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests of batch appends in our BlockChain class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestAppendAll {
+  /**
+   * The validator for these tests.
+   */
+  static final HashValidator VALIDATOR = (hash) -> hash.get(0) < 32;
+
+  /**
+   * Mine a batch of blocks that could follow a chain, without appending them.
+   */
+  static List<Block> batch(BlockChain chain, Transaction... ts) {
+    ArrayList<Block> blocks = new ArrayList<Block>();
+    Hash prev = chain.getHash();
+    int num = chain.getSize() + 1;
+    for (Transaction t : ts) {
+      Block blk = chain.getMiner().mine(num++, t, prev, VALIDATOR);
+      blocks.add(blk);
+      prev = blk.getHash();
+    } // for
+    return blocks;
+  } // batch(BlockChain, Transaction...)
+
+  /**
+   * Does a batch leave the chain as appending the blocks one by one would?
+   */
+  @Test
+  public void testSameAsOneByOne() {
+    BlockChain one = new BlockChain(VALIDATOR);
+    one.append(one.mine(new Transaction("", "A", 100)));
+    List<Block> blocks = batch(one, new Transaction("A", "B", 10), new Transaction("", "C", 5),
+        new Transaction("C", "A", 2), new Transaction("D", "A", 1), new Transaction("B", "D", 3),
+        new Transaction("D", "E", 1));
+
+    BlockStore copy = new BlockStore();
+    for (Block blk : one.getStorage()) {
+      copy.add(blk);
+    } // for
+    BlockChain all = new BlockChain(VALIDATOR, copy);
+
+    for (Block blk : blocks) {
+      one.append(blk);
+    } // for
+    all.appendAll(blocks);
+    assertEquals(one.getSize(), all.getSize(), "size");
+    assertEquals(one.getHash(), all.getHash(), "last hash");
+    assertEquals(one.getBalances(), all.getBalances(), "balances");
+    assertTrue(all.contains(blocks.get(3).getHash()), "indexed");
+    assertTrue(all.isCorrect() == one.isCorrect(), "same verdict");
+  } // testSameAsOneByOne()
+
+  /**
+   * Does a bad block anywhere in the batch leave the chain untouched?
+   */
+  @Test
+  public void testAllOrNothing() {
+    BlockChain chain = new BlockChain(VALIDATOR);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    Hash before = chain.getHash();
+
+    List<Block> tampered = batch(chain, new Transaction("A", "B", 10),
+        new Transaction("A", "B", 20), new Transaction("A", "B", 30));
+    tampered.get(2).transaction = new Transaction("A", "B", 3000);
+    assertThrows(IllegalArgumentException.class, () -> chain.appendAll(tampered));
+
+    List<Block> unlinked = batch(chain, new Transaction("A", "B", 10));
+    unlinked.addAll(batch(chain, new Transaction("A", "B", 20)));
+    assertThrows(IllegalArgumentException.class, () -> chain.appendAll(unlinked));
+
+    assertEquals(2, chain.getSize(), "size unchanged");
+    assertEquals(before, chain.getHash(), "end unchanged");
+    assertEquals(100, chain.getBalances().get("A"), "balances unchanged");
+    assertFalse(chain.getBalances().containsKey("B"), "no new users");
+
+    chain.appendAll(new ArrayList<Block>());
+    assertEquals(2, chain.getSize(), "empty batch");
+  } // testAllOrNothing()
+} // class TestAppendAll
@@ -0,0 +1,56 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our BalanceTable class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestBalanceTable {
+  /**
+   * Do balances roll back to a mark, including whether they existed?
+   */
+  @Test
+  public void testRollback() {
+    BalanceTable table = new BalanceTable();
+    int a = table.id("A");
+    table.put(a, 10);
+    int mark = table.mark();
+    int b = table.id("B");
+    table.put(b, 0);
+    table.put(a, 7);
+    table.put(a, 3);
+    assertTrue(table.has(b), "B has a balance of 0");
+    assertEquals(3, table.get(a), "A after changes");
+    table.rollbackTo(mark);
+    assertFalse(table.has(b), "B has no balance");
+    assertEquals(10, table.get(a), "A rolled back");
+    assertFalse(table.has(table.find("C")), "unknown names have no balance");
+    table.clear();
+    assertFalse(table.has(a), "cleared");
+    assertEquals(a, table.find("A"), "names keep their ids");
+  } // testRollback()
+
+  /**
+   * Does the table grow past its first size?
+   */
+  @Test
+  public void testMany() {
+    BalanceTable table = new BalanceTable();
+    for (int i = 0; i < 1000; i++) {
+      table.put(table.id("user" + i), i);
+    } // for
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, table.get(table.find("user" + i)), "user " + i);
+    } // for
+    table.rollbackTo(0);
+    assertFalse(table.has(table.find("user999")), "all rolled back");
+  } // testMany()
+} // class TestBalanceTable
@@ -0,0 +1,138 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our BlockEncoder and BlockDecoder classes.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestBlockCodec {
+  /**
+   * Build a chain with a few users who trade back and forth.
+   */
+  static BlockChain tradingChain(int blocks) {
+    BlockChain chain = new BlockChain((hash) -> true);
+    String[] users = {"Alice", "Bob", "Carol", "Dave"};
+    for (String user : users) {
+      chain.append(chain.mine(new Transaction("", user, 1000)));
+    } // for
+    for (int i = chain.getSize(); i < blocks; i++) {
+      chain.append(chain.mine(
+          new Transaction(users[i % users.length], users[(i + 1) % users.length], i % 7)));
+    } // for
+    return chain;
+  } // tradingChain(int)
+
+  /**
+   * Does a chain come back the same, and is it much smaller than its text?
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    BlockChain chain = tradingChain(200);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (BlockEncoder encoder = new BlockEncoder(bytes)) {
+      encoder.writeAll(chain);
+      assertEquals(bytes.size(), encoder.getBytesWritten(), "bytes written");
+    } // try
+
+    long text = 0;
+    for (Block blk : chain.getStorage()) {
+      text += blk.toString().length();
+    } // for
+    assertTrue(bytes.size() * 10 < text, bytes.size() + " bytes against " + text + " of text");
+
+    BlockStore store = new BlockStore();
+    try (BlockDecoder decoder = new BlockDecoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertEquals(200, decoder.readAll(store), "blocks read");
+    } // try
+    for (int i = 0; i < 200; i++) {
+      TestMappedBlockLog.assertSameContents(chain.getBlock(i), store.get(i), "block " + i);
+    } // for
+    BlockChain copy = new BlockChain((hash) -> true, store);
+    copy.check();
+    assertEquals(chain.balance("Carol"), copy.balance("Carol"), "Carol's balance");
+  } // testRoundTrip()
+
+  /**
+   * Do odd values survive: negative numbers, large nonces, null names, unrelated hashes?
+   */
+  @Test
+  public void testOddBlocks() throws IOException {
+    Block[] blocks = {
+        new Block(-5, new Transaction(null, "Ünïcödé", -100), null, Long.MIN_VALUE),
+        new Block(Integer.MAX_VALUE, new Transaction("", null, Integer.MIN_VALUE),
+            new Hash(new byte[] {1, 2, 3}), Long.MAX_VALUE),
+        new Block(3, new Transaction("Ünïcödé", "", 0), new Hash(new byte[0]), -1)};
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BlockEncoder encoder = new BlockEncoder(bytes);
+    for (Block blk : blocks) {
+      encoder.write(blk);
+    } // for
+    BlockDecoder decoder = new BlockDecoder(new ByteArrayInputStream(bytes.toByteArray()));
+    for (Block blk : blocks) {
+      TestMappedBlockLog.assertSameContents(blk, decoder.read(), "block " + blk.getNum());
+    } // for
+    assertNull(decoder.read(), "end of stream");
+  } // testOddBlocks()
+
+  /**
+   * Do we notice truncated and malformed streams?
+   */
+  @Test
+  public void testBadStreams() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new BlockEncoder(bytes).write(new Block(1, new Transaction("A", "B", 3), null, 4));
+    byte[] whole = bytes.toByteArray();
+    for (int cut = 1; cut < whole.length; cut++) {
+      byte[] part = Arrays.copyOf(whole, cut);
+      assertThrows(EOFException.class,
+          () -> new BlockDecoder(new ByteArrayInputStream(part)).read(), "cut at " + cut);
+    } // for
+    // Block 0, nonce 0, amount 0, then a reference to a name never defined.
+    byte[] unknown = {0, 0, 0, 5};
+    assertThrows(IOException.class,
+        () -> new BlockDecoder(new ByteArrayInputStream(unknown)).read());
+    // A previous hash that refers to a block before the first one.
+    byte[] noPrev = {0, 0, 0, 0, 0, 1};
+    assertThrows(IOException.class,
+        () -> new BlockDecoder(new ByteArrayInputStream(noPrev)).read());
+  } // testBadStreams()
+
+  /**
+   * Does a changed block break the link to the next one, rather than decode as a chain that
+   * looks fine?
+   */
+  @Test
+  public void testChangedBlock() throws IOException {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    chain.append(chain.mine(new Transaction("A", "B", 7)));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new BlockEncoder(bytes).writeAll(chain);
+    byte[] changed = bytes.toByteArray();
+    // The amount 100 is the zigzag varint 0xc8 0x01; make it 101.
+    int at = 0;
+    while (!((changed[at] & 0xff) == 0xc8 && changed[at + 1] == 1)) {
+      at++;
+    } // while
+    changed[at] = (byte) 0xca;
+    BlockDecoder decoder = new BlockDecoder(new ByteArrayInputStream(changed));
+    decoder.read();
+    assertEquals(101, decoder.read().getTransaction().getAmount(), "the changed block");
+    assertThrows(IOException.class, () -> decoder.read(), "link to the changed block");
+  } // testChangedBlock()
+} // class TestBlockCodec
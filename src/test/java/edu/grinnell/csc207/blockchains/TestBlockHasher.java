@@ -0,0 +1,76 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our BlockHasher class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestBlockHasher {
+  /**
+   * Set up the reference hashing in TestBlock.
+   */
+  @BeforeAll
+  static void setup() {
+    TestBlock.setup();
+  } // setup()
+
+  /**
+   * Does the hasher agree with the reference hash in TestBlock?
+   */
+  @Test
+  public void testMatchesBlock() {
+    BlockHasher hasher = BlockHasher.get();
+    byte[] out = new byte[BlockHasher.HASH_BYTES + 3];
+    Hash ph = new Hash(new byte[] {4, 8, 15, 16, 23, 42});
+    for (long nonce = 0; nonce < 100; nonce++) {
+      Block b = new Block((int) nonce, new Transaction("Sam", "Rebelsky", (int) nonce), ph, nonce);
+      hasher.hashInto(b, out, 3);
+      byte[] result = new byte[BlockHasher.HASH_BYTES];
+      System.arraycopy(out, 3, result, 0, BlockHasher.HASH_BYTES);
+      assertArrayEquals(TestBlock.expectedHash(b), result, "hash with nonce " + nonce);
+    } // for
+  } // testMatchesBlock()
+
+  /**
+   * Once warmed up, does hashing in a loop allocate nothing?
+   */
+  @Test
+  public void testNoAllocation() {
+    com.sun.management.ThreadMXBean mx =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    Transaction t = new Transaction("A fairly long source", "A fairly long target", 1000);
+    Hash ph = new Hash(new byte[BlockHasher.HASH_BYTES]);
+    byte[] out = new byte[BlockHasher.HASH_BYTES];
+
+    // Warm up so that class loading and compilation are out of the way.
+    hashMany(t, ph, out, 200_000);
+    mx.getThreadAllocatedBytes(thread);
+
+    long before = mx.getThreadAllocatedBytes(thread);
+    hashMany(t, ph, out, 100_000);
+    long after = mx.getThreadAllocatedBytes(thread);
+    // Reading the counter itself may allocate a little, but nothing close to a byte per hash.
+    assertTrue(after - before < 1024, "allocated " + (after - before) + " bytes");
+  } // testNoAllocation()
+
+  /**
+   * Hash a block many times.
+   */
+  static void hashMany(Transaction t, Hash ph, byte[] out, int count) {
+    BlockHasher hasher = BlockHasher.get();
+    for (int i = 0; i < count; i++) {
+      hasher.hashInto(i, t, ph, i, out, 0);
+    } // for
+  } // hashMany(Transaction, Hash, byte[], int)
+} // class TestBlockHasher
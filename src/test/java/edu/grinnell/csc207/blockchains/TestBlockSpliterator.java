@@ -0,0 +1,90 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our BlockSpliterator class and the streams built on it.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestBlockSpliterator {
+  /**
+   * Make a store of blocks numbered by height.
+   */
+  static BlockStore store(int count) {
+    BlockStore store = new BlockStore();
+    for (int i = 0; i < count; i++) {
+      store.add(TestBlockStore.block(i));
+    } // for
+    return store;
+  } // store(int)
+
+  /**
+   * Do splits cover every block once, in order, with exact sizes?
+   */
+  @Test
+  public void testSplit() {
+    Spliterator<Block> all = store(1000).view().spliterator();
+    assertTrue(all.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED
+        | Spliterator.ORDERED | Spliterator.IMMUTABLE), "characteristics");
+    assertEquals(1000, all.getExactSizeIfKnown(), "size");
+
+    Spliterator<Block> first = all.trySplit();
+    assertNotNull(first, "split");
+    assertEquals(500, first.getExactSizeIfKnown(), "first half");
+    assertEquals(500, all.getExactSizeIfKnown(), "second half");
+    List<Integer> nums = new ArrayList<Integer>();
+    first.tryAdvance((b) -> nums.add(b.getNum()));
+    assertEquals(499, first.getExactSizeIfKnown(), "after one");
+    first.forEachRemaining((b) -> nums.add(b.getNum()));
+    all.forEachRemaining((b) -> nums.add(b.getNum()));
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, nums.get(i), "block " + i);
+    } // for
+    assertEquals(0, all.getExactSizeIfKnown(), "used up");
+
+    assertNull(store(100).view().spliterator().trySplit(), "too small to split");
+  } // testSplit()
+
+  /**
+   * Do parallel streams give the same answers as sequential ones?
+   */
+  @Test
+  public void testParallelStreams() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100000)));
+    for (int i = 0; i < 3000; i++) {
+      chain.append(chain.mine(new Transaction("A", "U" + (i % 7), i % 13)));
+    } // for
+
+    assertEquals(3002, chain.blockStream().parallel().count(), "count");
+    long sequential = chain.transactionStream().mapToLong(Transaction::getAmount).sum();
+    long parallel = chain.transactionStream().parallel().mapToLong(Transaction::getAmount).sum();
+    assertEquals(sequential, parallel, "volume");
+
+    Map<String, Integer> received = chain.transactionStream().parallel()
+        .collect(Collectors.groupingBy(Transaction::getTarget,
+            Collectors.summingInt(Transaction::getAmount)));
+    assertEquals(chain.balance("U3"), received.get("U3"), "received by U3");
+
+    List<Integer> heights = chain.blockStream().parallel().map(Block::getNum)
+        .collect(Collectors.toList());
+    assertEquals(0, heights.get(0), "genesis first");
+    for (int i = 1; i < heights.size(); i++) {
+      assertEquals(i + 1, heights.get(i), "order kept at " + i);
+    } // for
+  } // testParallelStreams()
+} // class TestBlockSpliterator
@@ -0,0 +1,121 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our BlockStore class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestBlockStore {
+  /**
+   * Make a block to store. The contents do not matter to the store.
+   */
+  static Block block(int num) {
+    return new Block(num, new Transaction("", "A", num), new Hash(new byte[] {}), num);
+  } // block(int)
+
+  /**
+   * Can we add, get, and remove blocks across several segments?
+   */
+  @Test
+  public void testAddGetRemove() {
+    BlockStore store = new BlockStore();
+    int count = BlockStore.SEGMENT_SIZE * 5 + 3;
+    Block[] blocks = new Block[count];
+    for (int i = 0; i < count; i++) {
+      blocks[i] = block(i);
+      store.add(blocks[i]);
+      assertEquals(i + 1, store.size(), "size after adding " + i);
+      assertSame(blocks[i], store.last(), "last after adding " + i);
+    } // for
+    for (int i = 0; i < count; i++) {
+      assertSame(blocks[i], store.get(i), "block " + i);
+    } // for
+    for (int i = count - 1; i >= 0; i--) {
+      assertSame(blocks[i], store.removeLast(), "removing " + i);
+      assertEquals(i, store.size(), "size after removing " + i);
+    } // for
+    assertThrows(NoSuchElementException.class, () -> store.removeLast());
+    assertThrows(IndexOutOfBoundsException.class, () -> store.get(0));
+  } // testAddGetRemove()
+
+  /**
+   * Do blocks removed at a segment boundary come back correctly?
+   */
+  @Test
+  public void testChurnAtBoundary() {
+    BlockStore store = new BlockStore();
+    for (int i = 0; i < BlockStore.SEGMENT_SIZE; i++) {
+      store.add(block(i));
+    } // for
+    for (int round = 0; round < 10; round++) {
+      Block extra = block(round);
+      store.add(extra);
+      assertSame(extra, store.get(BlockStore.SEGMENT_SIZE), "round " + round);
+      store.removeLast();
+      store.removeLast();
+      store.add(block(round));
+    } // for
+    assertEquals(BlockStore.SEGMENT_SIZE, store.size(), "final size");
+    assertThrows(IndexOutOfBoundsException.class, () -> store.get(BlockStore.SEGMENT_SIZE));
+  } // testChurnAtBoundary()
+
+  /**
+   * Do range iterators cover exactly their range?
+   */
+  @Test
+  public void testRange() {
+    BlockStore store = new BlockStore();
+    for (int i = 0; i < 2000; i++) {
+      store.add(block(i));
+    } // for
+    Iterator<Block> it = store.iterator(1020, 1030);
+    for (int i = 1020; i < 1030; i++) {
+      assertTrue(it.hasNext(), "hasNext before " + i);
+      assertEquals(i, it.next().getNum(), "block " + i);
+    } // for
+    assertFalse(it.hasNext(), "hasNext at end of range");
+    assertThrows(NoSuchElementException.class, () -> it.next());
+    assertFalse(store.iterator(5000, 6000).hasNext(), "range past the end");
+    int count = 0;
+    for (Block b : store) {
+      assertEquals(count++, b.getNum(), "full iteration");
+    } // for
+    assertEquals(2000, count, "blocks iterated");
+  } // testRange()
+
+  /**
+   * Do chains find blocks by height and still walk through nodes?
+   */
+  @Test
+  public void testChainHeights() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    Block b1 = chain.mine(new Transaction("", "A", 10));
+    chain.append(b1);
+    Block b2 = chain.mine(new Transaction("A", "B", 5));
+    chain.append(b2);
+    assertSame(b1, chain.getBlock(1), "height 1");
+    assertSame(b2, chain.getBlock(2), "height 2");
+    assertSame(b1, chain.getFront().getNext().getBlock(), "walking from the front");
+    assertNull(chain.getBack().getNext(), "nothing after the back");
+    Node n1 = chain.getFront().getNext();
+    chain.removeLast();
+    chain.removeLast();
+    assertSame(b2, n1.getNext().getBlock(), "old nodes keep their snapshot");
+    assertNull(chain.getFront().getNext(), "new nodes see the removal");
+    assertThrows(IndexOutOfBoundsException.class, () -> chain.getBlock(1));
+  } // testChainHeights()
+} // class TestBlockStore
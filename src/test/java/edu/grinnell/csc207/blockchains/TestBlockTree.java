@@ -0,0 +1,160 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our BlockTree class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestBlockTree {
+  /**
+   * Accept any hash.
+   */
+  static final HashValidator ANY = (hash) -> true;
+
+  /**
+   * Make a block that follows another.
+   */
+  static Block after(Block prev, int num, Transaction t) {
+    return new Block(num, t, prev.getHash(), ANY);
+  } // after(Block, int, Transaction)
+
+  /**
+   * Do we hold side branches and switch to the longest one?
+   */
+  @Test
+  public void testReorganize() {
+    BlockChain chain = new BlockChain(ANY);
+    BlockTree tree = new BlockTree(chain);
+    Block b1 = after(chain.getBlock(0), 1, new Transaction("", "A", 100));
+    Block b2 = after(b1, 2, new Transaction("A", "B", 10));
+    Block b3 = after(b2, 3, new Transaction("A", "B", 20));
+    assertTrue(tree.add(b1), "b1 on the main chain");
+    assertTrue(tree.add(b2), "b2 on the main chain");
+    assertTrue(tree.add(b3), "b3 on the main chain");
+
+    Block c3 = after(b2, 3, new Transaction("A", "C", 30));
+    assertFalse(tree.add(c3), "tie keeps the first branch");
+    assertSame(b3, chain.getBack().getBlock(), "tip still b3");
+    assertEquals(1, tree.getSideCount(), "c3 waits on the side");
+    assertEquals(30, chain.balance("B"), "B has b2 and b3");
+
+    Block c4 = after(c3, 4, new Transaction("C", "A", 5));
+    assertTrue(tree.add(c4), "longer branch wins");
+    assertEquals(5, chain.getSize(), "size after switch");
+    assertSame(c3, chain.getBlock(3), "c3 on the main chain");
+    assertSame(c4, chain.getBlock(4), "c4 on the main chain");
+    assertEquals(1, tree.getLastReorgDepth(), "only b3 undone");
+    assertEquals(10, chain.balance("B"), "b3 undone");
+    assertEquals(25, chain.balance("C"), "c3 and c4 applied");
+    assertEquals(65, chain.balance("A"), "A after the switch");
+    assertEquals(1, tree.getSideCount(), "b3 waits on the side");
+    assertTrue(tree.contains(b3.getHash()), "b3 still known");
+    assertFalse(chain.contains(b3.getHash()), "b3 off the main chain");
+    assertTrue(chain.isCorrect(), "chain after the switch");
+
+    // Grow the old branch until it wins again.
+    Block b4 = after(b3, 4, new Transaction("B", "A", 1));
+    assertFalse(tree.add(b4), "tie again");
+    Block b5 = after(b4, 5, new Transaction("B", "A", 1));
+    assertTrue(tree.add(b5), "old branch wins");
+    assertEquals(2, tree.getLastReorgDepth(), "c3 and c4 undone");
+    assertSame(b3, chain.getBlock(3), "b3 back");
+    assertEquals(6, chain.getSize(), "size after switching back");
+    assertEquals(0, chain.balance("C"), "C gone");
+    assertEquals(28, chain.balance("B"), "B after switching back");
+    assertEquals(2, tree.getSideCount(), "c3 and c4 on the side");
+    assertTrue(chain.isCorrect(), "chain after switching back");
+  } // testReorganize()
+
+  /**
+   * Does a switch cost only the depth of the fork, whatever the length of the chain?
+   */
+  @Test
+  public void testShallowFork() {
+    BlockChain chain = new BlockChain(ANY);
+    BlockTree tree = new BlockTree(chain);
+    tree.add(after(chain.getBlock(0), 1, new Transaction("", "A", 100000)));
+    for (int i = 2; i < 5000; i++) {
+      tree.add(after(chain.getBack().getBlock(), i, new Transaction("A", "B", 1)));
+    } // for
+    long before = chain.snapshot().getVersion();
+    Block fork = chain.getBlock(4997);
+    Block x = after(fork, 4998, new Transaction("A", "X", 7));
+    Block y = after(x, 4999, new Transaction("X", "A", 2));
+    Block z = after(y, 5000, new Transaction("X", "A", 2));
+    assertFalse(tree.add(x), "behind");
+    assertFalse(tree.add(y), "tied");
+    assertTrue(tree.add(z), "ahead");
+    assertEquals(2, tree.getLastReorgDepth(), "depth");
+    assertEquals(before + 1, chain.snapshot().getVersion(), "one change to the chain");
+    assertEquals(3, chain.balance("X"), "X");
+    List<Block> history = chain.history("X", 0, 10);
+    assertEquals(3, history.size(), "history of X");
+  } // testShallowFork()
+
+  /**
+   * Do we turn away blocks we cannot place or that are wrong?
+   */
+  @Test
+  public void testRejects() {
+    BlockChain chain = new BlockChain((hash) -> hash.get(0) == 0);
+    BlockTree tree = new BlockTree(chain);
+    Block stranger = new Block(1, new Transaction("", "A", 1), new Hash(new byte[] {1, 2, 3}),
+        (hash) -> hash.get(0) == 0);
+    assertThrows(IllegalArgumentException.class, () -> tree.add(stranger), "unknown parent");
+    Block good = new Block(1, new Transaction("", "A", 1), chain.getHash(),
+        (hash) -> hash.get(0) == 0);
+    assertTrue(tree.add(good), "good block");
+    Block side = new Block(1, new Transaction("", "B", 1), chain.getBlock(0).getHash(),
+        (hash) -> hash.get(0) == 0);
+    side.nonce++;
+    assertThrows(IllegalArgumentException.class, () -> tree.add(side), "bad hash");
+    assertEquals(0, tree.getSideCount(), "nothing on the side");
+    Block first = new Block(0, new Transaction("", "A", 1), null, (hash) -> hash.get(0) == 0);
+    assertThrows(IllegalArgumentException.class, () -> tree.add(first), "no previous hash");
+  } // testRejects()
+
+  /**
+   * Do we forget a block whose switch of branches fails?
+   */
+  @Test
+  public void testFailedSwitch() {
+    BlockStore store = new BlockStore() {
+      public void add(Block blk) {
+        if (blk.getNum() == 99) {
+          throw new IllegalStateException("Storage full");
+        } // if
+        super.add(blk);
+      } // add(Block)
+    };
+    BlockChain chain = new BlockChain(ANY, store);
+    BlockTree tree = new BlockTree(chain);
+    Block b1 = after(chain.getBlock(0), 1, new Transaction("", "A", 100));
+    Block b2 = after(b1, 2, new Transaction("A", "B", 10));
+    assertTrue(tree.add(b1), "b1 on the main chain");
+    assertTrue(tree.add(b2), "b2 on the main chain");
+    Block c2 = after(b1, 2, new Transaction("A", "C", 10));
+    assertFalse(tree.add(c2), "c2 on the side");
+    Block c3 = after(c2, 99, new Transaction("C", "A", 1));
+    assertThrows(IllegalStateException.class, () -> tree.add(c3), "switch fails");
+    assertSame(b2, chain.getBlock(2), "main chain as it was");
+    assertEquals(3, chain.getSize(), "size as it was");
+    assertFalse(tree.contains(c3.getHash()), "c3 forgotten");
+    assertTrue(tree.contains(c2.getHash()), "c2 still on the side");
+    assertThrows(IllegalStateException.class, () -> tree.add(c3), "fails again");
+    Block c4 = after(c3, 4, new Transaction("C", "A", 1));
+    assertThrows(IllegalArgumentException.class, () -> tree.add(c4), "nothing builds on c3");
+  } // testFailedSwitch()
+} // class TestBlockTree
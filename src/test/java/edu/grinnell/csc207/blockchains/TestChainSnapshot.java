@@ -0,0 +1,164 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our ChainSnapshot class and of reading chains from many threads.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestChainSnapshot {
+  /**
+   * Do snapshots stay the same as the chain changes?
+   */
+  @Test
+  public void testUnchanged() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 10)));
+    chain.append(chain.mine(new Transaction("A", "B", 5)));
+    ChainSnapshot before = chain.snapshot();
+    Block[] blocks = {chain.getBlock(0), chain.getBlock(1), chain.getBlock(2)};
+    Block tip = before.getTip();
+
+    chain.removeLast();
+    chain.append(chain.mine(new Transaction("A", "C", 7)));
+    chain.append(chain.mine(new Transaction("C", "A", 1)));
+
+    assertEquals(3, before.getSize(), "size");
+    assertSame(tip, before.getTip(), "tip");
+    assertSame(tip, before.getBlock(2), "replaced block");
+    assertEquals(tip.getHash(), before.getHash(), "hash");
+    int count = 0;
+    for (Iterator<Block> iter = before.blocks(); iter.hasNext(); count++) {
+      assertSame(blocks[count], iter.next(), "iterated block");
+    } // for
+    assertEquals(3, count, "blocks iterated");
+    assertThrows(IndexOutOfBoundsException.class, () -> before.getBlock(3));
+
+    ChainSnapshot after = chain.snapshot();
+    assertEquals(4, after.getSize(), "new size");
+    assertEquals(before.getVersion() + 3, after.getVersion(), "one version per change");
+    assertNotEquals(tip.getHash(), after.getBlock(2).getHash(), "new block at height 2");
+  } // testUnchanged()
+
+  /**
+   * Do views of a store survive removing and replacing many segments of blocks?
+   */
+  @Test
+  public void testStoreViews() {
+    BlockStore store = new BlockStore();
+    int count = BlockStore.SEGMENT_SIZE * 4 + 5;
+    for (int i = 0; i < count; i++) {
+      store.add(TestBlockStore.block(i));
+    } // for
+    BlockStorage.View view = store.view();
+    for (int i = 0; i < count - 10; i++) {
+      store.removeLast();
+    } // for
+    BlockStorage.View small = store.view();
+    for (int i = 10; i < count + 100; i++) {
+      store.add(TestBlockStore.block(-i));
+    } // for
+
+    assertEquals(count, view.size(), "size of first view");
+    for (int i = 0; i < count; i++) {
+      assertEquals(i, view.get(i).getNum(), "first view at " + i);
+    } // for
+    assertEquals(10, small.size(), "size of second view");
+    assertEquals(9, small.get(9).getNum(), "second view");
+    assertEquals(-10, store.get(10).getNum(), "store sees the replacements");
+    assertEquals(count + 100, store.size(), "store size");
+  } // testStoreViews()
+
+  /**
+   * Do readers see whole chains while another thread appends and removes blocks?
+   */
+  @Test
+  public void testConcurrentReaders() throws Exception {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 1000000)));
+    AtomicBoolean done = new AtomicBoolean(false);
+    ExecutorService readers = Executors.newFixedThreadPool(3);
+    List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+    for (int r = 0; r < 3; r++) {
+      results.add(readers.submit(() -> {
+        int checked = 0;
+        while (!done.get()) {
+          ChainSnapshot snap = chain.snapshot();
+          Hash prev = null;
+          int size = 0;
+          for (Iterator<Block> blocks = snap.blocks(); blocks.hasNext(); size++) {
+            Block blk = blocks.next();
+            assertTrue(prev == null || prev.equals(blk.getPrevHash()), "linked at " + size);
+            prev = blk.getHash();
+          } // for
+          assertEquals(snap.getSize(), size, "blocks in snapshot");
+          assertEquals(snap.getHash(), prev, "tip of snapshot");
+          Map<String, Integer> balances = chain.getBalances();
+          assertEquals(1000000, balances.get("A") + balances.getOrDefault("B", 0),
+              "money is neither made nor lost");
+          checked++;
+        } // while
+        return checked;
+      }));
+    } // for
+
+    for (int i = 0; i < 3000; i++) {
+      chain.append(chain.mine(new Transaction("A", "B", 1)));
+      if (i % 3 == 2) {
+        chain.removeLast();
+      } // if
+    } // for
+    done.set(true);
+    readers.shutdown();
+    assertTrue(readers.awaitTermination(1, TimeUnit.MINUTES), "readers finish");
+    for (Future<Integer> result : results) {
+      // Rethrow whatever a reader found wrong.
+      result.get();
+    } // for
+    assertEquals(2002, chain.getSize(), "final size");
+    assertTrue(chain.isCorrect(), "final chain");
+    assertFalse(chain.getVerifiedHeight() < chain.getSize(), "checked to the end");
+  } // testConcurrentReaders()
+
+  /**
+   * Does a query that fails with an error during a change get asked again under the lock?
+   */
+  @Test
+  public void testErrorDuringChange() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 10)));
+    int[] calls = {0};
+    int size = chain.read(() -> {
+      if (calls[0]++ == 0) {
+        chain.removeLast();
+        throw new InternalError("torn read");
+      } // if
+      return chain.getSize();
+    });
+    assertEquals(1, size, "answered again after the change");
+    assertEquals(2, calls[0], "asked twice");
+    assertThrows(InternalError.class, () -> chain.read(() -> {
+      throw new InternalError("no change");
+    }), "errors without a change still escape");
+  } // testErrorDuringChange()
+} // class TestChainSnapshot
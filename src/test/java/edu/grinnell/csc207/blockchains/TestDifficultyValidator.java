@@ -0,0 +1,85 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our DifficultyValidator class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestDifficultyValidator {
+  /**
+   * Make a 32-byte hash whose only set bit is the given one, counting from the front.
+   */
+  static byte[] oneBit(int bit) {
+    byte[] bytes = new byte[BlockHasher.HASH_BYTES];
+    bytes[bit / Byte.SIZE] = (byte) (0x80 >>> (bit % Byte.SIZE));
+    return bytes;
+  } // oneBit(int)
+
+  /**
+   * Does each difficulty accept exactly the hashes with enough leading zeros?
+   */
+  @Test
+  public void testEveryDifficulty() {
+    for (int bits = 0; bits <= 256; bits++) {
+      DifficultyValidator v = DifficultyValidator.leadingZeroBits(bits);
+      assertTrue(v.isValid(new Hash(new byte[BlockHasher.HASH_BYTES])), "all zero, " + bits);
+      for (int bit = 0; bit < 256; bit++) {
+        boolean expected = bit >= bits;
+        assertEquals(expected, v.isValid(new Hash(oneBit(bit))),
+            "bit " + bit + " set, " + bits + " required");
+        byte[] padded = new byte[BlockHasher.HASH_BYTES + 5];
+        System.arraycopy(oneBit(bit), 0, padded, 5, BlockHasher.HASH_BYTES);
+        assertEquals(expected, v.isValid(padded, 5),
+            "raw bit " + bit + " set, " + bits + " required");
+      } // for
+    } // for
+  } // testEveryDifficulty()
+
+  /**
+   * Do we handle hashes shorter than 32 bytes?
+   */
+  @Test
+  public void testShortHashes() {
+    DifficultyValidator v = DifficultyValidator.leadingZeroBits(12);
+    assertTrue(v.isValid(new Hash(new byte[] {0, 0x0f})), "exactly enough bits");
+    assertFalse(v.isValid(new Hash(new byte[] {0, 0x10})), "bit 11 set");
+    assertFalse(v.isValid(new Hash(new byte[] {0})), "too short");
+    assertFalse(DifficultyValidator.leadingZeroBytes(3).isValid(new Hash(new byte[] {0, 0})),
+        "too short for bytes");
+    assertTrue(DifficultyValidator.leadingZeroBits(0).isValid(new Hash(new byte[] {})),
+        "no bits needed");
+  } // testShortHashes()
+
+  /**
+   * Can we mine and append with a bit-level difficulty?
+   */
+  @Test
+  public void testChain() throws Exception {
+    DifficultyValidator v = DifficultyValidator.leadingZeroBits(13);
+    BlockChain chain = new BlockChain(v);
+    chain.append(chain.mine(new Transaction("", "A", 10)));
+    chain.append(chain.mine(new Transaction("A", "B", 5)));
+    assertTrue(v.isValid(chain.getHash()), "last hash valid");
+    assertEquals(0, chain.getHash().get(0), "first byte zero");
+    assertEquals(0, chain.getHash().get(1) & 0xf8, "next five bits zero");
+    chain.check();
+  } // testChain()
+
+  /**
+   * Are impossible difficulties rejected?
+   */
+  @Test
+  public void testRange() {
+    assertThrows(IllegalArgumentException.class, () -> new DifficultyValidator(-1));
+    assertThrows(IllegalArgumentException.class, () -> new DifficultyValidator(257));
+  } // testRange()
+} // class TestDifficultyValidator
@@ -0,0 +1,94 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our Hash256 class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestHash256 {
+  /**
+   * Does a compact hash agree with the Hash it came from?
+   */
+  @Test
+  public void testRoundTrip() {
+    Random rand = new Random(256);
+    for (int trial = 0; trial < 100; trial++) {
+      byte[] bytes = new byte[Hash256.BYTES];
+      rand.nextBytes(bytes);
+      Hash hash = new Hash(bytes);
+      Hash256 compact = Hash256.of(hash);
+      assertEquals(hash, compact.toHash(), "round trip");
+      assertArrayEquals(bytes, compact.getBytes(), "bytes");
+      assertEquals(hash.toString(), compact.toString(), "hex");
+      assertTrue(compact.matches(hash), "matches");
+      for (int i = 0; i < Hash256.BYTES; i++) {
+        assertEquals(bytes[i], compact.get(i), "byte " + i);
+      } // for
+      byte[] out = new byte[Hash256.BYTES + 2];
+      compact.writeTo(out, 2);
+      assertEquals(compact, Hash256.of(out, 2), "written and read back");
+    } // for
+  } // testRoundTrip()
+
+  /**
+   * Do equality and hash codes behave?
+   */
+  @Test
+  public void testEquals() {
+    byte[] bytes = new byte[Hash256.BYTES];
+    bytes[31] = 1;
+    Hash256 a = Hash256.of(bytes, 0);
+    Hash256 b = Hash256.of(bytes, 0);
+    assertEquals(a, b, "same bytes");
+    assertEquals(a.hashCode(), b.hashCode(), "same codes");
+    bytes[31] = 2;
+    Hash256 c = Hash256.of(bytes, 0);
+    assertNotEquals(a, c, "last byte differs");
+    assertFalse(a.matches(new Hash(new byte[] {0, 1})), "different length");
+    assertFalse(a.equals(a.toHash()), "not equal to a Hash");
+  } // testEquals()
+
+  /**
+   * Are hashes of the wrong length rejected?
+   */
+  @Test
+  public void testWrongLength() {
+    assertThrows(IllegalArgumentException.class, () -> Hash256.of(new Hash(new byte[] {1, 2})));
+  } // testWrongLength()
+
+  /**
+   * Do hashes that start with many zeros, as mined hashes do, still get different codes?
+   */
+  @Test
+  public void testLeadingZeroCodes() {
+    Random rand = new Random(64);
+    HashSet<Integer> codes = new HashSet<Integer>();
+    for (int trial = 0; trial < 1000; trial++) {
+      codes.add(new Hash256(0, rand.nextLong(), rand.nextLong(), rand.nextLong()).hashCode());
+    } // for
+    assertTrue(codes.size() > 990, codes.size() + " distinct codes");
+  } // testLeadingZeroCodes()
+
+  /**
+   * Do block hashes convert?
+   */
+  @Test
+  public void testBlockHash() {
+    Block b = new Block(1, new Transaction("", "A", 5), new Hash(new byte[] {}), 3);
+    assertEquals(b.getHash().toString(), Hash256.of(b.getHash()).toString(), "block hash hex");
+  } // testBlockHash()
+} // class TestHash256
@@ -0,0 +1,99 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our HashIndex class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestHashIndex {
+  /**
+   * Fill a store with blocks.
+   */
+  static BlockStore fill(int count) {
+    BlockStore store = new BlockStore();
+    for (int i = 0; i < count; i++) {
+      store.add(TestBlockStore.block(i));
+    } // for
+    return store;
+  } // fill(int)
+
+  /**
+   * Can we find every block we add, and none that we remove, even removing out of order?
+   */
+  @Test
+  public void testAddFindRemove() {
+    int count = 3000;
+    BlockStore store = fill(count);
+    HashIndex index = new HashIndex(store);
+    for (int i = 0; i < count; i++) {
+      index.add(store.get(i).getHash(), i);
+    } // for
+    assertEquals(count, index.size(), "size after adding");
+    for (int i = 0; i < count; i++) {
+      assertEquals(i, index.find(store.get(i).getHash()), "finding " + i);
+    } // for
+
+    boolean[] removed = new boolean[count];
+    Random rand = new Random(11);
+    for (int trial = 0; trial < count / 2; trial++) {
+      int i = rand.nextInt(count);
+      assertEquals(!removed[i], index.remove(store.get(i).getHash(), i), "removing " + i);
+      removed[i] = true;
+      if (trial % 100 == 0) {
+        for (int j = 0; j < count; j++) {
+          assertEquals(removed[j] ? -1 : j, index.find(store.get(j).getHash()), "finding " + j);
+        } // for
+      } // if
+    } // for
+  } // testAddFindRemove()
+
+  /**
+   * Are hashes that share the indexed bytes told apart?
+   */
+  @Test
+  public void testSharedKey() {
+    BlockStore store = fill(10);
+    HashIndex index = new HashIndex(store);
+    for (int i = 0; i < 10; i++) {
+      index.add(store.get(i).getHash(), i);
+    } // for
+    byte[] bytes = store.get(3).getHash().getBytes();
+    bytes[0] ^= 1;
+    Hash impostor = new Hash(bytes);
+    assertEquals(HashIndex.key(store.get(3).getHash()), HashIndex.key(impostor), "same key");
+    assertEquals(-1, index.find(impostor), "impostor not found");
+    assertEquals(3, index.find(store.get(3).getHash()), "original found");
+    assertEquals(-1, index.find(new Hash(new byte[] {1, 2, 3})), "short hash");
+  } // testSharedKey()
+
+  /**
+   * Does the chain keep its index up to date?
+   */
+  @Test
+  public void testChainIndex() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    assertSame(chain.getBlock(0), chain.getBlockByHash(chain.getHash()), "initial block");
+    Block b1 = chain.mine(new Transaction("", "A", 10));
+    chain.append(b1);
+    Block b2 = chain.mine(new Transaction("A", "B", 5));
+    chain.append(b2);
+    assertSame(b1, chain.getBlockByHash(b1.getHash()), "block 1");
+    assertSame(b2, chain.getBlockByHash(new Hash(b2.getHash().getBytes())), "copy of hash 2");
+    chain.removeLast();
+    assertFalse(chain.contains(b2.getHash()), "removed block");
+    assertNull(chain.getBlockByHash(b2.getHash()), "removed block by hash");
+    assertTrue(chain.contains(b1.getHash()), "remaining block");
+  } // testChainIndex()
+} // class TestHashIndex
@@ -0,0 +1,83 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our HeaderHasher class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestHeaderHasher {
+  /**
+   * Set up the reference hashing in TestBlock.
+   */
+  @BeforeAll
+  static void setup() {
+    TestBlock.setup();
+  } // setup()
+
+  /**
+   * Do we agree with MessageDigest for every prefix length across a few chunks? This covers the
+   * nonce starting at every offset in a chunk, including those where it straddles two chunks.
+   */
+  @Test
+  public void testAllLengths() throws Exception {
+    Random rand = new Random(207);
+    MessageDigest md = MessageDigest.getInstance("sha-256");
+    for (int len = 0; len < 200; len++) {
+      byte[] prefix = new byte[len];
+      rand.nextBytes(prefix);
+      HeaderHasher hasher = new HeaderHasher(prefix);
+      for (int i = 0; i < 5; i++) {
+        long nonce = (i < 2) ? i : rand.nextLong();
+        md.update(prefix);
+        md.update(TestBlock.longToBytes(nonce));
+        byte[] out = new byte[BlockHasher.HASH_BYTES];
+        hasher.hashInto(nonce, out, 0);
+        assertArrayEquals(md.digest(), out, "prefix of " + len + " bytes, nonce " + nonce);
+      } // for
+    } // for
+  } // testAllLengths()
+
+  /**
+   * Do we agree with the blocks' hashes?
+   */
+  @Test
+  public void testBlocks() {
+    Hash ph = new Hash(new byte[BlockHasher.HASH_BYTES]);
+    String[] names = {"", "A", "Rebelsky", "A much, much longer name than usual for a user"};
+    for (String src : names) {
+      for (String tgt : names) {
+        Transaction t = new Transaction(src, tgt, 77);
+        HeaderHasher hasher = new HeaderHasher(12, t, ph);
+        for (long nonce = 0; nonce < 20; nonce++) {
+          Block b = new Block(12, t, ph, nonce);
+          assertArrayEquals(TestBlock.expectedHash(b), hasher.hash(nonce).getBytes(),
+              "[" + src + "], [" + tgt + "], " + nonce);
+        } // for
+      } // for
+    } // for
+  } // testBlocks()
+
+  /**
+   * Does a miner using the specialized hasher find the same nonce?
+   */
+  @Test
+  public void testMiner() {
+    HashValidator v = (hash) -> (hash.length() >= 2) && (hash.get(0) == 9) && (hash.get(1) == 9);
+    Transaction t = new Transaction("Here", "There", 5);
+    Hash ph = new Hash(new byte[] {1, 2});
+    Miner miner = new Miner(2, HeaderHasher::new);
+    assertEquals(new Block(3, t, ph, v).getNonce(), miner.search(3, t, ph, v), "same nonce");
+    miner.shutdown();
+  } // testMiner()
+} // class TestHeaderHasher
@@ -0,0 +1,128 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests of incremental checking in our BlockChain class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestIncrementalCheck {
+  /**
+   * Do repeat checks look only at the new blocks?
+   */
+  @Test
+  public void testOnlyNewBlocks() throws Exception {
+    AtomicInteger validations = new AtomicInteger();
+    BlockChain chain = new BlockChain((hash) -> validations.incrementAndGet() > 0);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    for (int i = 0; i < 50; i++) {
+      chain.append(chain.mine(new Transaction("A", "B", 1)));
+    } // for
+    assertTrue(chain.isCorrectIncremental(), "first check");
+    assertEquals(chain.getSize(), chain.getVerifiedHeight(), "everything verified");
+
+    validations.set(0);
+    chain.checkIncremental();
+    assertEquals(0, validations.get(), "nothing new to check");
+
+    chain.append(chain.mine(new Transaction("B", "A", 5)));
+    chain.append(chain.mine(new Transaction("B", "A", 5)));
+    validations.set(0);
+    assertTrue(chain.isCorrectIncremental(), "after two appends");
+    assertEquals(2, validations.get(), "only the new blocks were checked");
+  } // testOnlyNewBlocks()
+
+  /**
+   * Does an incremental check catch a bad transaction after good ones, and keep the watermark
+   * at the last good block?
+   */
+  @Test
+  public void testOverdraft() throws Exception {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    chain.checkIncremental();
+    chain.append(chain.mine(new Transaction("A", "B", 60)));
+    chain.append(chain.mine(new Transaction("A", "B", 60)));
+    assertFalse(chain.isCorrectIncremental(), "A spent more than it had");
+    assertEquals(3, chain.getVerifiedHeight(), "watermark stops before the bad block");
+    assertThrows(Exception.class, () -> chain.checkIncremental());
+    chain.removeLast();
+    chain.checkIncremental();
+    assertEquals(chain.getSize(), chain.getVerifiedHeight(), "fine without the bad block");
+  } // testOverdraft()
+
+  /**
+   * Does removing verified blocks undo their effect on the checked balances?
+   */
+  @Test
+  public void testRemoveBelowWatermark() throws Exception {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    chain.append(chain.mine(new Transaction("", "B", 100)));
+    chain.append(chain.mine(new Transaction("A", "B", 10)));
+    chain.checkIncremental();
+
+    chain.removeLast();
+    chain.removeLast();
+    chain.removeLast();
+    assertEquals(1, chain.getVerifiedHeight(), "watermark follows removals");
+
+    // A's deposit is gone, so A cannot pay.
+    chain.append(chain.mine(new Transaction("A", "C", 10)));
+    assertFalse(chain.isCorrectIncremental(), "A has nothing after its deposit is removed");
+    assertFalse(chain.isCorrect(), "full check agrees");
+    chain.removeLast();
+
+    chain.append(chain.mine(new Transaction("", "A", 5)));
+    chain.append(chain.mine(new Transaction("A", "C", 5)));
+    assertTrue(chain.isCorrectIncremental(), "A can pay what it has");
+    assertTrue(chain.isCorrect(), "full check agrees");
+    assertEquals(chain.getSize(), chain.getVerifiedHeight(), "full check moves the watermark");
+  } // testRemoveBelowWatermark()
+
+  /**
+   * Does a check that starts while a block is being replaced see the removal and the new
+   * block together?
+   */
+  @Test
+  public void testCheckDuringReplace() throws Exception {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    chain.append(chain.mine(new Transaction("A", "B", 10)));
+    chain.checkIncremental();
+    Block overdraft = new Block(chain.getSize(), new Transaction("A", "B", 1000),
+        chain.getBlock(1).getHash(), (long) 0);
+
+    // Act as the writer, stopping between removing the block and publishing the change.
+    ExecutorService checker = Executors.newSingleThreadExecutor();
+    long stamp = chain.lock.writeLock();
+    Future<Boolean> during;
+    try {
+      chain.dropLast();
+      during = checker.submit(chain::isCorrectIncremental);
+      Thread.sleep(50);
+      chain.addAll(List.of(overdraft));
+      chain.publish();
+    } finally {
+      chain.lock.unlockWrite(stamp);
+    } // try/finally
+    assertFalse(during.get(), "the check waits for the new block");
+    checker.shutdown();
+    assertFalse(chain.isCorrectIncremental(), "the overdraft is still caught");
+    assertFalse(chain.isCorrect(), "full check agrees");
+  } // testCheckDuringReplace()
+} // class TestIncrementalCheck
@@ -0,0 +1,144 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our Ledger class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestLedger {
+  /**
+   * Get all the users as a sorted array.
+   */
+  static String[] users(Iterator<String> it) {
+    ArrayList<String> users = new ArrayList<String>();
+    while (it.hasNext()) {
+      users.add(it.next());
+    } // while
+    String[] result = users.toArray(new String[] {});
+    Arrays.sort(result);
+    return result;
+  } // users(Iterator<String>)
+
+  /**
+   * Do balances and users follow transactions?
+   */
+  @Test
+  public void testApply() {
+    Ledger ledger = new Ledger();
+    ledger.apply(new Transaction("", "A", 100));
+    ledger.apply(new Transaction("A", "B", 30));
+    ledger.apply(new Transaction("C", "B", 5));
+    assertEquals(70, ledger.balance("A"), "A");
+    assertEquals(35, ledger.balance("B"), "B");
+    assertEquals(-5, ledger.balance("C"), "C sent without receiving");
+    assertEquals(-100, ledger.balance(""), "deposits");
+    assertEquals(0, ledger.balance("D"), "nobody");
+    assertEquals(2, ledger.userCount(), "user count");
+    assertTrue(ledger.isUser("B"), "B received");
+    assertFalse(ledger.isUser("C"), "C only sent");
+    assertFalse(ledger.isUser(""), "deposits are not a user");
+    assertEquals(2, ledger.balances().size(), "balances of users");
+    assertEquals(70, ledger.balances().get("A"), "A's entry");
+  } // testApply()
+
+  /**
+   * Does undoing in any amount put the ledger back exactly?
+   */
+  @Test
+  public void testUndo() {
+    Ledger ledger = new Ledger();
+    Random rand = new Random(17);
+    String[] names = {"", "A", "B", "C", "D"};
+    long[][] balances = new long[201][names.length];
+    int[] counts = new int[201];
+    for (int i = 1; i <= 200; i++) {
+      ledger.apply(new Transaction(names[rand.nextInt(names.length)],
+          names[rand.nextInt(names.length)], rand.nextInt(50)));
+      for (int n = 0; n < names.length; n++) {
+        balances[i][n] = ledger.balance(names[n]);
+      } // for
+      counts[i] = ledger.userCount();
+    } // for
+    for (int i = 200; i > 0; i -= 7) {
+      ledger.rollbackTo(i);
+      assertEquals(i, ledger.size(), "size at " + i);
+      assertEquals(counts[i], ledger.userCount(), "users at " + i);
+      for (int n = 0; n < names.length; n++) {
+        assertEquals(balances[i][n], ledger.balance(names[n]), names[n] + " at " + i);
+      } // for
+    } // for
+    ledger.rollbackTo(0);
+    assertEquals(0, ledger.userCount(), "no users left");
+    assertThrows(IllegalStateException.class, () -> ledger.undo());
+  } // testUndo()
+
+  /**
+   * Once the names are known, do applying and undoing allocate nothing but the journal?
+   */
+  @Test
+  public void testNoAllocation() {
+    com.sun.management.ThreadMXBean mx =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    Ledger ledger = new Ledger();
+    Transaction[] ts = new Transaction[100];
+    for (int i = 0; i < ts.length; i++) {
+      ts[i] = new Transaction("user" + i, "user" + (i * 7 % ts.length), i);
+    } // for
+
+    // Warm up so that the names, the journal, and compilation are out of the way.
+    churn(ledger, ts, 2000);
+    mx.getThreadAllocatedBytes(thread);
+
+    long before = mx.getThreadAllocatedBytes(thread);
+    churn(ledger, ts, 1000);
+    long after = mx.getThreadAllocatedBytes(thread);
+    assertTrue(after - before < 1024, "allocated " + (after - before) + " bytes");
+  } // testNoAllocation()
+
+  /**
+   * Apply and undo transactions many times.
+   */
+  static void churn(Ledger ledger, Transaction[] ts, int rounds) {
+    for (int round = 0; round < rounds; round++) {
+      for (Transaction t : ts) {
+        ledger.apply(t);
+      } // for
+      ledger.rollbackTo(0);
+    } // for
+  } // churn(Ledger, Transaction[], int)
+
+  /**
+   * Does the chain keep its ledger exact through removals?
+   */
+  @Test
+  public void testChain() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    Transaction last = new Transaction("A", "B", 40);
+    chain.append(chain.mine(last));
+    assertEquals(2, chain.getUserCount(), "two users");
+    assertArrayEquals(new String[] {"A", "B"}, users(chain.users()), "A and B");
+    assertEquals(3, chain.getLedger().size(), "initial block and two more");
+    chain.removeLast();
+    assertEquals(100, chain.balance("A"), "A after removal");
+    assertEquals(0, chain.balance("B"), "B after removal");
+    assertEquals(1, chain.getUserCount(), "B is gone");
+  } // testChain()
+} // class TestLedger
@@ -0,0 +1,215 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Some simple tests of our MappedBlockLog class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestMappedBlockLog {
+  /**
+   * A fresh directory for each test.
+   */
+  @TempDir
+  Path dir;
+
+  /**
+   * Assert that two blocks have the same contents.
+   */
+  static void assertSameContents(Block expected, Block actual, String msg) {
+    assertEquals(expected.getNum(), actual.getNum(), msg + ": num");
+    assertEquals(expected.getNonce(), actual.getNonce(), msg + ": nonce");
+    assertEquals(expected.getPrevHash(), actual.getPrevHash(), msg + ": prevHash");
+    assertEquals(expected.getHash(), actual.getHash(), msg + ": hash");
+    assertEquals(expected.getTransaction().getSource(), actual.getTransaction().getSource(),
+        msg + ": source");
+    assertEquals(expected.getTransaction().getTarget(), actual.getTransaction().getTarget(),
+        msg + ": target");
+    assertEquals(expected.getTransaction().getAmount(), actual.getTransaction().getAmount(),
+        msg + ": amount");
+  } // assertSameContents(Block, Block, String)
+
+  /**
+   * Do blocks survive closing and reopening, across several segments?
+   */
+  @Test
+  public void testReopen() throws IOException {
+    Block[] blocks = new Block[500];
+    try (MappedBlockLog log = new MappedBlockLog(dir, 4096)) {
+      for (int i = 0; i < blocks.length; i++) {
+        blocks[i] = new Block(i, new Transaction("Sam" + i, "Rebelskyé", i),
+            new Hash(new byte[] {(byte) i}), i);
+        log.add(blocks[i]);
+      } // for
+      assertSame(blocks[499], log.last(), "last block is the one added");
+      assertSameContents(blocks[17], log.get(17), "before closing");
+    } // try
+    assertTrue(Files.exists(dir.resolve("blocks-00001.seg")), "more than one segment");
+
+    try (MappedBlockLog log = new MappedBlockLog(dir)) {
+      assertEquals(blocks.length, log.size(), "size after reopening");
+      Iterator<Block> it = log.iterator();
+      for (int i = 0; i < blocks.length; i++) {
+        assertSameContents(blocks[i], it.next(), "block " + i);
+      } // for
+      assertSame(log.last(), log.last(), "last block is cached");
+    } // try
+  } // testReopen()
+
+  /**
+   * Does removing blocks truncate the log, do new blocks reuse the space, and does reopening
+   * trim what is left?
+   */
+  @Test
+  public void testRemove() throws IOException {
+    try (MappedBlockLog log = new MappedBlockLog(dir, 1024)) {
+      for (int i = 0; i < 100; i++) {
+        log.add(new Block(i, new Transaction(null, "A", i), null, i));
+      } // for
+      for (int i = 99; i >= 30; i--) {
+        assertEquals(i, log.removeLast().getNum(), "removing " + i);
+      } // for
+      log.add(new Block(1000, new Transaction("", "B", 7), null, 7));
+    } // try
+    assertTrue(Files.exists(dir.resolve("blocks-00005.seg")), "left for readers on close");
+
+    try (MappedBlockLog log = new MappedBlockLog(dir)) {
+      assertTrue(Files.notExists(dir.resolve("blocks-00005.seg")), "unused segments deleted");
+      assertEquals(31, log.size(), "size after reopening");
+      assertEquals(29, log.get(29).getNum(), "block before the removed ones");
+      assertNull(log.get(29).getTransaction().getSource(), "null source");
+      assertEquals(1000, log.last().getNum(), "block added after removing");
+      assertEquals("B", log.last().getTransaction().getTarget(), "target added after removing");
+    } // try
+  } // testRemove()
+
+  /**
+   * Do views keep the blocks they were made with after those blocks are removed and replaced?
+   */
+  @Test
+  public void testViewsKeepBlocks() throws IOException {
+    try (MappedBlockLog log = new MappedBlockLog(dir, 1024)) {
+      for (int i = 0; i < 40; i++) {
+        log.add(new Block(i, new Transaction("", "A", i), null, i));
+      } // for
+      BlockStorage.View before = log.view();
+      for (int i = 0; i < 10; i++) {
+        log.removeLast();
+      } // for
+      BlockStorage.View between = log.view();
+      for (int i = 30; i < 45; i++) {
+        log.add(new Block(i, new Transaction("", "B", i), null, i));
+      } // for
+      log.removeLast();
+      log.add(new Block(44, new Transaction("", "C", 44), null, 44));
+
+      assertEquals(40, before.size(), "size of the first view");
+      for (int i = 0; i < 40; i++) {
+        assertEquals("A", before.get(i).getTransaction().getTarget(), "first view at " + i);
+        assertEquals(i, before.get(i).getNonce(), "nonce in the first view at " + i);
+      } // for
+      assertEquals(30, between.size(), "size of the second view");
+      assertEquals("A", between.get(29).getTransaction().getTarget(), "second view");
+      assertEquals("B", log.get(35).getTransaction().getTarget(), "the log itself");
+      assertEquals("C", log.get(44).getTransaction().getTarget(), "replaced again");
+    } // try
+    try (MappedBlockLog log = new MappedBlockLog(dir)) {
+      assertEquals(45, log.size(), "size after reopening");
+      assertEquals("C", log.last().getTransaction().getTarget(), "last after reopening");
+    } // try
+  } // testViewsKeepBlocks()
+
+  /**
+   * Do new blocks reuse the space of removed ones once no view can reach it?
+   */
+  @Test
+  public void testSpaceReused() throws Exception {
+    try (MappedBlockLog log = new MappedBlockLog(dir, 1024)) {
+      for (int i = 0; i < 10; i++) {
+        log.add(new Block(i, new Transaction("", "A", i), null, i));
+      } // for
+      long at7 = log.entry(7);
+      long at8 = log.entry(8);
+      long at9 = log.entry(9);
+      BlockStorage.View view = log.view();
+      log.removeLast();
+      log.add(new Block(9, new Transaction("", "B", 9), null, 9));
+      assertEquals(at9, log.entry(9), "a view keeps its last block in memory");
+
+      view = log.view();
+      log.removeLast();
+      log.removeLast();
+      log.add(new Block(8, new Transaction("", "C", 8), null, 8));
+      assertNotEquals(at8, log.entry(8), "space a view can reach");
+      assertEquals("A", view.get(8).getTransaction().getTarget(), "what the view reaches");
+      log.removeLast();
+      log.removeLast();
+
+      view = null;
+      for (int tries = 0; tries < 100 && log.liveViews() > 0; tries++) {
+        System.gc();
+        Thread.sleep(10);
+      } // for
+      assertEquals(0, log.liveViews(), "the view is collected");
+      log.add(new Block(7, new Transaction("", "D", 7), null, 7));
+      assertEquals(at7, log.entry(7), "space reused once no view reaches it");
+      assertEquals("D", log.get(7).getTransaction().getTarget(), "the new block");
+    } // try
+  } // testSpaceReused()
+
+  /**
+   * Do we refuse files that are not logs, and logs that are closed?
+   */
+  @Test
+  public void testBadUse() throws IOException {
+    Files.write(dir.resolve(MappedBlockLog.INDEX_FILE), new byte[] {1, 2, 3, 4});
+    assertThrows(IOException.class, () -> new MappedBlockLog(dir));
+    Path other = dir.resolve("other");
+    MappedBlockLog log = new MappedBlockLog(other);
+    log.close();
+    assertThrows(IllegalStateException.class, () -> log.add(TestBlockStore.block(0)));
+  } // testBadUse()
+
+  /**
+   * Does a chain kept on disk come back with its blocks, balances, and index?
+   */
+  @Test
+  public void testChain() throws Exception {
+    HashValidator v = (hash) -> (hash.length() >= 1) && (hash.get(0) == 0);
+    BlockChain chain = new BlockChain(v, new MappedBlockLog(dir));
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    chain.append(chain.mine(new Transaction("A", "B", 30)));
+    chain.append(chain.mine(new Transaction("B", "C", 10)));
+    chain.removeLast();
+    Hash tip = chain.getHash();
+    chain.getStorage().close();
+
+    BlockChain reopened = new BlockChain(v, new MappedBlockLog(dir));
+    assertEquals(3, reopened.getSize(), "size");
+    assertEquals(tip, reopened.getHash(), "hash of last block");
+    assertEquals(0, reopened.ledger.size(), "nothing replayed on opening");
+    assertEquals(70, reopened.balance("A"), "A's balance");
+    assertEquals(30, reopened.getBalances().get("B"), "B's stored balance");
+    assertTrue(reopened.contains(reopened.getBlock(1).getHash()), "indexed");
+    reopened.check();
+    reopened.append(reopened.mine(new Transaction("B", "C", 10)));
+    assertEquals(10, reopened.balance("C"), "C's balance after appending");
+    reopened.getStorage().close();
+  } // testChain()
+} // class TestMappedBlockLog
@@ -0,0 +1,166 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our Mempool class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestMempool {
+  /**
+   * Do we check transactions against the balances after everything waiting?
+   */
+  @Test
+  public void testProjectedBalances() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    Mempool pool = new Mempool(chain);
+
+    assertTrue(pool.submit(new Transaction("A", "B", 60)), "A can pay 60");
+    assertFalse(pool.submit(new Transaction("A", "C", 50)), "A has only 40 left");
+    assertTrue(pool.submit(new Transaction("B", "C", 50)), "B can spend what is coming");
+    assertFalse(pool.submit(new Transaction("D", "C", 1)), "D is nobody");
+    assertFalse(pool.submit(new Transaction("", "C", -1)), "no negative deposits");
+    assertTrue(pool.submit(new Transaction("", "D", 5)), "deposits are fine");
+    assertEquals(3, pool.size(), "waiting");
+    assertEquals(40, pool.projectedBalance("A"), "A");
+    assertEquals(10, pool.projectedBalance("B"), "B");
+    assertEquals(50, pool.projectedBalance("C"), "C");
+    assertEquals(100, chain.balance("A"), "nothing mined yet");
+  } // testProjectedBalances()
+
+  /**
+   * Do miners get transactions in priority order without spending money before it arrives?
+   */
+  @Test
+  public void testPriority() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    Mempool pool = new Mempool(chain);
+    Transaction d1 = new Transaction("", "A", 5);
+    Transaction d2 = new Transaction("", "A", 6);
+    Transaction pay = new Transaction("A", "B", 9);
+    assertTrue(pool.submit(d1), "first deposit");
+    assertTrue(pool.submit(d2), "second deposit");
+    assertTrue(pool.submit(pay), "payment");
+
+    assertSame(d2, pool.poll(), "largest that A can pay for");
+    assertSame(d1, pool.poll(), "A cannot pay 9 out of 6 yet");
+    assertSame(pay, pool.poll(), "payment once the money is there");
+    assertNull(pool.poll(), "empty");
+
+    for (Transaction t : new Transaction[] {d2, d1, pay}) {
+      chain.append(chain.mine(t));
+    } // for
+    assertTrue(chain.isCorrect(), "mined in the order given");
+    assertEquals(0, pool.getEvicted(), "nothing evicted");
+  } // testPriority()
+
+  /**
+   * Do we drop what the chain has mined and what it makes impossible?
+   */
+  @Test
+  public void testChainChanges() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    Mempool pool = new Mempool(chain);
+    Transaction mine = new Transaction("A", "B", 30);
+    Transaction doomed = new Transaction("A", "C", 60);
+    assertTrue(pool.submit(mine), "first payment");
+    assertTrue(pool.submit(doomed), "second payment");
+
+    // Someone mines our first payment, and another payment, without asking the pool.
+    chain.append(chain.mine(mine));
+    chain.append(chain.mine(new Transaction("A", "D", 50)));
+    assertEquals(0, pool.size(), "both gone");
+    assertEquals(1, pool.getEvicted(), "only the second evicted");
+    assertEquals(20, pool.projectedBalance("A"), "A");
+  } // testChainChanges()
+
+  /**
+   * Do transactions taken for mining keep counting until they are mined, even as other blocks
+   * arrive?
+   */
+  @Test
+  public void testTakenSurvivesChanges() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 10)));
+    Mempool pool = new Mempool(chain);
+    Transaction pay = new Transaction("A", "B", 10);
+    assertTrue(pool.submit(pay), "A can pay 10");
+    assertEquals(List.of(pay), pool.drain(5), "taken for mining");
+
+    chain.append(chain.mine(new Transaction("", "X", 1)));
+    assertFalse(pool.submit(new Transaction("A", "C", 10)), "A's 10 is already spoken for");
+    assertEquals(0, pool.projectedBalance("A"), "A while mining");
+
+    chain.append(chain.mine(new Transaction("A", "B", 10)));
+    assertEquals(0, pool.projectedBalance("A"), "A once mined");
+    assertFalse(pool.release(pay), "nothing to release once mined");
+    assertTrue(pool.submit(new Transaction("", "A", 4)), "deposit");
+    assertTrue(pool.submit(new Transaction("A", "C", 4)), "A can spend the deposit");
+
+    Transaction t = pool.poll();
+    assertTrue(pool.release(t), "released");
+    assertEquals(2, pool.size(), "waiting again");
+    assertEquals(4, pool.projectedBalance("C"), "C");
+  } // testTakenSurvivesChanges()
+
+  /**
+   * Do we recognize copies of our transactions in blocks, each copy once?
+   */
+  @Test
+  public void testMatchByValue() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    Mempool pool = new Mempool(chain);
+    assertTrue(pool.submit(new Transaction("A", "B", 5)), "first");
+    assertTrue(pool.submit(new Transaction("A", "B", 5)), "second, the same");
+    assertTrue(pool.submit(new Transaction("A", "C", 7)), "third");
+
+    chain.append(chain.mine(List.of(new Transaction("A", "B", 5),
+        new Transaction("A", "C", 7))));
+    assertEquals(1, pool.size(), "one of the equal transfers left");
+    assertEquals(0, pool.getEvicted(), "nothing evicted");
+    assertEquals(83, pool.projectedBalance("A"), "A");
+    assertEquals(10, pool.projectedBalance("B"), "B");
+  } // testMatchByValue()
+
+  /**
+   * Can many threads submit at once?
+   */
+  @Test
+  public void testConcurrentSubmit() throws Exception {
+    BlockChain chain = new BlockChain((hash) -> true);
+    Mempool pool = new Mempool(chain);
+    ExecutorService clients = Executors.newFixedThreadPool(4);
+    for (int c = 0; c < 4; c++) {
+      String user = "U" + c;
+      clients.execute(() -> {
+        for (int i = 0; i < 1000; i++) {
+          pool.submit(new Transaction("", user, 1));
+        } // for
+      });
+    } // for
+    clients.shutdown();
+    assertTrue(clients.awaitTermination(1, TimeUnit.MINUTES), "clients finish");
+    assertEquals(4000, pool.size(), "everything waiting");
+    List<Transaction> batch = pool.drain(1500);
+    assertEquals(1500, batch.size(), "drained");
+    assertEquals(2500, pool.size(), "rest waiting");
+    assertEquals(1000, pool.projectedBalance("U2"), "U2");
+  } // testConcurrentSubmit()
+} // class TestMempool
@@ -0,0 +1,233 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Some simple tests of our MerkleTree and MerkleProof classes, and of blocks that hold many
+ * transactions.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestMerkleTree {
+  /**
+   * A fresh directory for each test.
+   */
+  @TempDir
+  Path dir;
+
+  /**
+   * Make some transactions between a few users.
+   */
+  static List<Transaction> transactions(int count) {
+    ArrayList<Transaction> result = new ArrayList<Transaction>();
+    for (int i = 0; i < count; i++) {
+      result.add(new Transaction("U" + (i % 3), "U" + ((i + 1) % 3), i));
+    } // for
+    return result;
+  } // transactions(int)
+
+  /**
+   * Build a chain with a deposit and then a block of several payments.
+   */
+  static BlockChain paymentChain() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(List.of(new Transaction("", "A", 100),
+        new Transaction("", "B", 50))));
+    chain.append(chain.mine(new Transaction("A", "C", 10)));
+    chain.append(chain.mine(List.of(new Transaction("A", "B", 20),
+        new Transaction("B", "C", 60), new Transaction("C", "A", 5))));
+    return chain;
+  } // paymentChain()
+
+  /**
+   * Does every transaction have a proof, whatever the number of transactions?
+   */
+  @Test
+  public void testProofs() {
+    for (int count = 1; count <= 17; count++) {
+      List<Transaction> ts = transactions(count);
+      MerkleTree tree = new MerkleTree(ts);
+      assertEquals(count, tree.size(), "size");
+      for (int i = 0; i < count; i++) {
+        MerkleProof proof = tree.prove(i);
+        assertTrue(proof.verify(ts.get(i), tree.getRoot()), count + " transactions, index " + i);
+        assertTrue(proof.size() <= 32 - Integer.numberOfLeadingZeros(count), "proof size");
+        assertFalse(proof.verify(new Transaction("U9", "U0", i), tree.getRoot()),
+            "a transaction not in the tree");
+        if (count > 1) {
+          assertFalse(proof.verify(ts.get((i + 1) % count), tree.getRoot()),
+              "a transaction at another index");
+        } // if
+      } // for
+    } // for
+    assertThrows(IllegalArgumentException.class, () -> new MerkleTree(new ArrayList<>()),
+        "empty tree");
+  } // testProofs()
+
+  /**
+   * Do different transactions or orders give different roots?
+   */
+  @Test
+  public void testRoots() {
+    List<Transaction> ts = transactions(5);
+    Hash root = new MerkleTree(ts).getRoot();
+    assertEquals(root, new MerkleTree(transactions(5)).getRoot(), "same transactions");
+    assertNotEquals(root, new MerkleTree(List.of(ts.get(1), ts.get(0), ts.get(2), ts.get(3),
+        ts.get(4))).getRoot(), "swapped");
+    assertNotEquals(root, new MerkleTree(transactions(4)).getRoot(), "one fewer");
+    assertNotEquals(new MerkleTree(List.of(new Transaction("ab", "c", 1))).getRoot(),
+        new MerkleTree(List.of(new Transaction("a", "bc", 1))).getRoot(), "names kept apart");
+  } // testRoots()
+
+  /**
+   * Can a client check a transaction against just the header, and do we catch tampering?
+   */
+  @Test
+  public void testBlockProofs() {
+    List<Transaction> ts = transactions(6);
+    Block blk = new Block(1, ts, new Hash(new byte[] {1, 2}), (hash) -> hash.get(0) == 0);
+    assertTrue(blk.hasPayload(), "payload");
+    assertEquals(6, blk.getTransactionCount(), "count");
+    assertEquals(blk.getHash(), blk.computeHash(), "hash");
+    assertEquals(0, blk.getHash().get(0), "mined");
+
+    Block header = blk.getHeader();
+    assertFalse(header.hasPayload(), "header alone");
+    assertEquals(blk.getHash(), header.computeHash(), "the header hashes the same");
+    for (int i = 0; i < ts.size(); i++) {
+      assertTrue(blk.prove(i).verify(ts.get(i), header), "transaction " + i);
+    } // for
+    assertFalse(new MerkleTree(transactions(7)).prove(2).verify(ts.get(2), header),
+        "proof from another block");
+    assertNull(new Block(1, ts.get(0), blk.getPrevHash(), 0).getMerkleRoot(), "no root");
+    assertThrows(IllegalStateException.class,
+        () -> new Block(1, ts.get(0), blk.getPrevHash(), 0).prove(0), "no payload");
+
+    blk.payload[3] = new Transaction("U0", "U1", 1000);
+    assertNotEquals(blk.getHash(), blk.computeHash(), "tampered payload");
+  } // testBlockProofs()
+
+  /**
+   * Do blocks of many transactions update and check balances?
+   */
+  @Test
+  public void testChain() {
+    BlockChain chain = paymentChain();
+    assertEquals(4, chain.getSize(), "size");
+    assertEquals(75, chain.balance("A"), "A");
+    assertEquals(10, chain.balance("B"), "B");
+    assertEquals(65, chain.balance("C"), "C");
+    assertEquals(90, chain.balanceAt("A", 2), "A before the last block");
+    assertEquals(2, chain.history("B", 0, 10).size(), "blocks with B");
+    assertEquals(3, chain.historySize("A"), "blocks with A");
+    assertEquals(7, chain.transactionStream().count(), "transactions streamed");
+    int seen = 0;
+    for (Transaction t : chain) {
+      seen++;
+    } // for
+    assertEquals(7, seen, "transactions iterated");
+    assertTrue(chain.isCorrect(), "correct");
+
+    chain.removeLast();
+    assertEquals(90, chain.balance("A"), "A after removing");
+    assertEquals(50, chain.balance("B"), "B after removing");
+    assertEquals(10, chain.balance("C"), "C after removing");
+    assertEquals(1, chain.history("B", 0, 10).size(), "blocks with B after removing");
+    assertTrue(chain.isCorrect(), "correct after removing");
+
+    Block full = chain.mine(List.of(new Transaction("A", "B", 1), new Transaction("A", "C", 2)));
+    assertTrue(full.getHeader().isHeaderOnly(), "header alone");
+    assertFalse(full.isHeaderOnly(), "the block itself");
+    assertThrows(IllegalArgumentException.class, () -> chain.append(full.getHeader()),
+        "headers cannot be appended");
+    assertThrows(IllegalArgumentException.class, () -> chain.appendAll(List.of(full.getHeader())),
+        "nor appended in a batch");
+    assertEquals(3, chain.getSize(), "nothing appended");
+
+    Block overdrawn = chain.mine(List.of(new Transaction("C", "A", 5),
+        new Transaction("C", "B", 6)));
+    chain.append(overdrawn);
+    assertFalse(chain.isCorrect(), "C cannot pay 11 out of 10");
+  } // testChain()
+
+  /**
+   * Do blocks of many transactions survive the codec and the mapped log?
+   */
+  @Test
+  public void testStorage() throws Exception {
+    BlockChain chain = paymentChain();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (BlockEncoder encoder = new BlockEncoder(bytes)) {
+      encoder.writeAll(chain);
+    } // try
+    BlockStore store = new BlockStore();
+    try (BlockDecoder decoder = new BlockDecoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertEquals(4, decoder.readAll(store), "blocks read");
+    } // try
+    try (MappedBlockLog log = new MappedBlockLog(dir, 4096)) {
+      for (Block blk : chain.getStorage()) {
+        log.add(blk);
+      } // for
+    } // try
+    try (MappedBlockLog log = new MappedBlockLog(dir, 4096)) {
+      for (BlockStorage copy : new BlockStorage[] {store, log}) {
+        for (int i = 0; i < chain.getSize(); i++) {
+          Block blk = chain.getBlock(i);
+          assertEquals(blk.getHash(), copy.get(i).getHash(), "hash " + i);
+          assertEquals(blk.getTransactions(), copy.get(i).getTransactions(), "payload " + i);
+        } // for
+        BlockChain again = new BlockChain((hash) -> true, copy);
+        assertEquals(65, again.balance("C"), "C");
+        assertTrue(again.isCorrect(), "correct");
+        assertTrue(copy.get(3).prove(1).verify(new Transaction("B", "C", 60),
+            chain.getBlock(3).getHeader()), "proof from the copy");
+      } // for
+    } // try
+  } // testStorage()
+
+  /**
+   * Does a payload damaged on disk show up as a wrong hash, with a root that matches what is
+   * there?
+   */
+  @Test
+  public void testDamageOnDisk() throws Exception {
+    Block blk = new Block(1, List.of(new Transaction("", "Zed", 5), new Transaction("", "A", 1)),
+        new Hash(new byte[] {7}), (long) 3);
+    try (MappedBlockLog log = new MappedBlockLog(dir, 4096)) {
+      log.add(blk);
+      log.add(new Block(2, new Transaction("", "B", 1), blk.getHash(), (long) 0));
+    } // try
+    Path seg = dir.resolve("blocks-00000.seg");
+    byte[] bytes = Files.readAllBytes(seg);
+    int at = new String(bytes, StandardCharsets.ISO_8859_1).indexOf("Zed");
+    bytes[at + 2] = 'e';
+    Files.write(seg, bytes);
+
+    try (MappedBlockLog log = new MappedBlockLog(dir)) {
+      Block read = log.get(0);
+      assertEquals("Zee", read.getTransaction(0).getTarget(), "damaged name");
+      assertEquals(new MerkleTree(read.getTransactions()).getRoot(), read.getMerkleRoot(),
+          "root rebuilt from what is there");
+      assertNotEquals(read.getHash(), read.computeHash(), "damage shows in the hash");
+      assertNotEquals(blk.getMerkleRoot(), read.getMerkleRoot(), "not the stored root");
+    } // try
+  } // testDamageOnDisk()
+} // class TestMerkleTree
@@ -0,0 +1,41 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our MidstateDigest class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestMidstateDigest {
+  /**
+   * Do we get the same hashes as computeHash for a variety of nonces?
+   */
+  @Test
+  public void testMatchesComputeHash() {
+    Transaction t = new Transaction("A rather long source name", "An even longer target name",
+        250);
+    Hash ph = Block.computeHash(1, new Transaction("", "X", 5), new Hash(new byte[] {}), 7);
+    MidstateDigest digest = new MidstateDigest(9, t, ph);
+    long[] nonces = {0, 1, 2, 255, 256, 65537, Long.MAX_VALUE, -1};
+    for (long nonce : nonces) {
+      assertEquals(new Block(9, t, ph, nonce).getHash(), digest.hash(nonce),
+          "hash with nonce " + nonce);
+    } // for
+  } // testMatchesComputeHash()
+
+  /**
+   * Do we handle the genesis block's empty fields?
+   */
+  @Test
+  public void testGenesis() {
+    Transaction t = new Transaction("", "", 0);
+    Hash ph = new Hash(new byte[] {});
+    MidstateDigest digest = new MidstateDigest(0, t, ph);
+    assertEquals(new Block(0, t, ph, 42).getHash(), digest.hash(42), "genesis hash");
+  } // testGenesis()
+} // class TestMidstateDigest
@@ -0,0 +1,99 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our Miner class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestMiner {
+  /**
+   * Does the parallel search find the same nonce as the serial one?
+   */
+  @Test
+  public void testMatchesSerial() {
+    HashValidator v = (hash) -> (hash.length() >= 2) && (hash.get(0) == 3) && (hash.get(1) == 5);
+    Transaction t = new Transaction("Here", "There", 123);
+    Hash ph = new Hash(new byte[] {1, 2, 3});
+    Block serial = new Block(4, t, ph, v);
+    for (int threads = 1; threads <= 5; threads++) {
+      Miner miner = new Miner(threads);
+      Block parallel = miner.mine(4, t, ph, v);
+      assertEquals(serial.getNonce(), parallel.getNonce(), "nonce with " + threads + " threads");
+      assertEquals(serial.getHash(), parallel.getHash(), "hash with " + threads + " threads");
+      miner.shutdown();
+    } // for
+  } // testMatchesSerial()
+
+  /**
+   * Does a mined block pass the validator?
+   */
+  @Test
+  public void testValid() {
+    HashValidator v = (hash) -> (hash.length() >= 1) && (hash.get(0) == 0);
+    Miner miner = new Miner(3);
+    Block block = miner.mine(2, new Transaction("", "A", 10), new Hash(new byte[] {}), v);
+    assertTrue(v.isValid(block.getHash()), "mined block is valid");
+    assertEquals(block.computeHash(), block.getHash(), "mined block has correct hash");
+    miner.shutdown();
+  } // testValid()
+
+  /**
+   * Can a validator keep the hashes it is given?
+   */
+  @Test
+  public void testValidatorKeepsHashes() {
+    List<Hash> kept = Collections.synchronizedList(new ArrayList<Hash>());
+    List<Boolean> answers = Collections.synchronizedList(new ArrayList<Boolean>());
+    HashValidator v = (hash) -> {
+      boolean valid = hash.get(0) == 0;
+      synchronized (kept) {
+        kept.add(hash);
+        answers.add(valid);
+      } // synchronized
+      return valid;
+    };
+    Miner miner = new Miner(2);
+    Block block = miner.mine(1, new Transaction("", "A", 1), new Hash(new byte[] {}), v);
+    miner.shutdown();
+    assertTrue(kept.contains(block.getHash()), "the winning hash was kept");
+    assertEquals(kept.size(), new HashSet<Hash>(kept).size(), "every attempt has its own hash");
+    for (int i = 0; i < kept.size(); i++) {
+      assertEquals(answers.get(i), kept.get(i).get(0) == 0, "hash " + i + " unchanged");
+    } // for
+  } // testValidatorKeepsHashes()
+
+  /**
+   * Do validator failures reach the caller?
+   */
+  @Test
+  public void testValidatorThrows() {
+    HashValidator v = (hash) -> {
+      throw new UnsupportedOperationException("no");
+    };
+    Miner miner = new Miner(2);
+    assertThrows(UnsupportedOperationException.class,
+        () -> miner.search(1, new Transaction("", "A", 1), new Hash(new byte[] {}), v));
+    miner.shutdown();
+  } // testValidatorThrows()
+
+  /**
+   * A miner needs at least one thread.
+   */
+  @Test
+  public void testNoThreads() {
+    assertThrows(IllegalArgumentException.class, () -> new Miner(0));
+  } // testNoThreads()
+} // class TestMiner
@@ -0,0 +1,90 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of mining in the background.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestMiningTask {
+  /**
+   * Does the task complete with the same block that mine finds?
+   */
+  @Test
+  public void testCompletes() throws Exception {
+    HashValidator v = (hash) -> (hash.length() >= 2) && (hash.get(0) == 1) && (hash.get(1) == 7);
+    BlockChain chain = new BlockChain(v);
+    Transaction t = new Transaction("", "A", 50);
+    MiningTask task = chain.mineAsync(t);
+    Block block = task.get(1, TimeUnit.MINUTES);
+    assertEquals(chain.mine(t).getNonce(), block.getNonce(), "same nonce as mine");
+    assertTrue(task.getAttempts() > block.getNonce(), "counted attempts");
+    chain.append(block);
+    assertEquals(2, chain.getSize(), "appended async block");
+  } // testCompletes()
+
+  /**
+   * Can we cancel a search that will never succeed?
+   */
+  @Test
+  public void testCancel() throws Exception {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.check = (hash) -> false;
+    MiningTask task = chain.mineAsync(new Transaction("", "A", 50));
+    while (task.getAttempts() == 0) {
+      Thread.sleep(1);
+    } // while
+    assertTrue(task.getHashesPerSecond() > 0, "reports a rate");
+    task.cancel(true);
+    assertThrows(CancellationException.class, () -> task.join());
+    long attempts = task.getAttempts();
+    Thread.sleep(100);
+    assertTrue(task.getAttempts() - attempts <= 2L * Miner.CHUNK * chain.getMiner().getThreads(),
+        "workers stop after cancel");
+  } // testCancel()
+
+  /**
+   * Does a timeout end the search?
+   */
+  @Test
+  public void testTimeout() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.check = (hash) -> false;
+    MiningTask task = chain.mineAsync(new Transaction("", "A", 50), 50, TimeUnit.MILLISECONDS);
+    ExecutionException e = assertThrows(ExecutionException.class, () -> task.get());
+    assertTrue(e.getCause() instanceof TimeoutException, "times out");
+  } // testTimeout()
+
+  /**
+   * Does the search restart when the end of the chain changes?
+   */
+  @Test
+  public void testRestart() throws Exception {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.check = (hash) -> false;
+    MiningTask task = chain.mineAsync(new Transaction("", "B", 5));
+    while (task.getAttempts() == 0) {
+      Thread.sleep(1);
+    } // while
+    // The search in progress keeps the impossible validator; the restart will pick up this one.
+    chain.check = (hash) -> true;
+    chain.append(chain.mine(new Transaction("", "A", 10)));
+    Block block = task.get(1, TimeUnit.MINUTES);
+    assertEquals(1, task.getRestarts(), "restarted once");
+    assertEquals(chain.getHash(), block.getPrevHash(), "mined on the new tip");
+    chain.append(block);
+    assertEquals(3, chain.getSize(), "appended block mined after change");
+  } // testRestart()
+} // class TestMiningTask
@@ -0,0 +1,69 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests of parallel checking in our BlockChain class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestParallelCheck {
+  /**
+   * Build a valid chain of some length.
+   */
+  static BlockChain chain(int size) {
+    BlockChain chain = new BlockChain((hash) -> hash.get(0) < 64);
+    chain.append(chain.mine(new Transaction("", "A", 1000)));
+    while (chain.getSize() < size) {
+      chain.append(chain.mine(new Transaction("A", "B", 1)));
+    } // while
+    return chain;
+  } // chain(int)
+
+  /**
+   * Is a valid chain found valid?
+   */
+  @Test
+  public void testValid() {
+    BlockChain chain = chain(300);
+    assertEquals(-1, chain.verifyParallel(), "no bad block");
+    assertTrue(chain.isCorrectParallel(), "correct");
+    assertEquals(300, chain.getVerifiedHeight(), "everything verified");
+  } // testValid()
+
+  /**
+   * Do we report the first block with a bad hash, link, or transaction?
+   */
+  @Test
+  public void testFirstFailure() {
+    BlockChain chain = chain(300);
+    chain.getBlock(250).transaction = new Transaction("A", "B", 2);
+    assertEquals(250, chain.verifyParallel(), "modified transaction");
+    assertFalse(chain.isCorrect(), "sequential check agrees");
+
+    chain.getBlock(120).nonce++;
+    assertEquals(120, chain.verifyParallel(), "modified nonce comes first");
+    assertEquals(120, chain.getVerifiedHeight(), "watermark at the first bad block");
+  } // testFirstFailure()
+
+  /**
+   * Do we report an overdraft that comes before a bad hash?
+   */
+  @Test
+  public void testLedgerFailure() {
+    BlockChain chain = chain(20);
+    chain.append(chain.mine(new Transaction("B", "C", 500)));
+    for (int i = 0; i < 20; i++) {
+      chain.append(chain.mine(new Transaction("A", "B", 1)));
+    } // for
+    assertEquals(20, chain.verifyParallel(), "B overdrew");
+    chain.getBlock(30).nonce++;
+    assertEquals(20, chain.verifyParallel(), "overdraft still comes first");
+  } // testLedgerFailure()
+} // class TestParallelCheck
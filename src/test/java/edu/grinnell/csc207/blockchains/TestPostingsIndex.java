@@ -0,0 +1,186 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our PostingsIndex class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestPostingsIndex {
+  /**
+   * The heights at which a user appears in a list of transactions, found the slow way.
+   */
+  static int[] expected(List<Transaction> ts, String name, int from, int limit) {
+    ArrayList<Integer> result = new ArrayList<Integer>();
+    for (int h = from; h < ts.size() && result.size() < limit; h++) {
+      if (name.equals(ts.get(h).getSource()) || name.equals(ts.get(h).getTarget())) {
+        result.add(h);
+      } // if
+    } // for
+    return result.stream().mapToInt(Integer::intValue).toArray();
+  } // expected(List<Transaction>, String, int, int)
+
+  /**
+   * Do postings match a scan through random adds and removes, with gaps of all sizes?
+   */
+  @Test
+  public void testAgainstScan() {
+    PostingsIndex index = new PostingsIndex();
+    ArrayList<Transaction> ts = new ArrayList<Transaction>();
+    String[] names = {"", "A", "B", "C", "Rare"};
+    Random rand = new Random(19);
+    for (int step = 0; step < 30_000; step++) {
+      if (ts.size() > 0 && rand.nextInt(4) == 0) {
+        index.remove(ts.get(ts.size() - 1), ts.size() - 1);
+        ts.remove(ts.size() - 1);
+      } else {
+        // "Rare" shows up seldom, so its gaps need several varint bytes.
+        String source = names[rand.nextInt(names.length - 1)];
+        String target = (rand.nextInt(5000) == 0) ? "Rare" : names[rand.nextInt(4)];
+        Transaction t = new Transaction(source, target, 1);
+        index.add(t, ts.size());
+        ts.add(t);
+      } // if
+    } // for
+    for (String name : names) {
+      if (!name.isEmpty()) {
+        assertArrayEquals(expected(ts, name, 0, Integer.MAX_VALUE),
+            index.heights(name, 0, Integer.MAX_VALUE), "all of " + name);
+        assertArrayEquals(expected(ts, name, ts.size() / 2, 10),
+            index.heights(name, ts.size() / 2, 10), "page of " + name);
+        assertEquals(expected(ts, name, 0, Integer.MAX_VALUE).length, index.count(name),
+            "count of " + name);
+      } // if
+    } // for
+    assertEquals(0, index.heights("", 0, 10).length, "deposits are not indexed");
+    assertEquals(0, index.heights("Nobody", 0, 10).length, "unknown user");
+  } // testAgainstScan()
+
+  /**
+   * Do pages that start on, just before, and just after checkpoints match a scan?
+   */
+  @Test
+  public void testPages() {
+    PostingsIndex index = new PostingsIndex();
+    ArrayList<Transaction> ts = new ArrayList<Transaction>();
+    Random rand = new Random(207);
+    for (int h = 0; h < 2_000; h++) {
+      Transaction t = new Transaction("", (rand.nextInt(3) == 0) ? "B" : "A", 1);
+      index.add(t, h);
+      ts.add(t);
+    } // for
+    for (int from = 0; from <= ts.size(); from++) {
+      assertArrayEquals(expected(ts, "A", from, 5), index.heights("A", from, 5), "from " + from);
+    } // for
+    int pages = 0;
+    int[] page = index.heights("A", 0, 7);
+    ArrayList<Integer> seen = new ArrayList<Integer>();
+    while (page.length > 0) {
+      for (int h : page) {
+        seen.add(h);
+      } // for
+      page = index.heights("A", page[page.length - 1] + 1, 7);
+      pages++;
+    } // while
+    assertArrayEquals(expected(ts, "A", 0, Integer.MAX_VALUE),
+        seen.stream().mapToInt(Integer::intValue).toArray(), "paged through");
+    assertEquals((index.count("A") + 6) / 7, pages, "pages");
+  } // testPages()
+
+  /**
+   * Do balances at past heights match a replay, through random adds and removes?
+   */
+  @Test
+  public void testBalanceAt() {
+    PostingsIndex index = new PostingsIndex();
+    BlockStore store = new BlockStore();
+    String[] names = {"", "A", "B", "C"};
+    Random rand = new Random(20);
+    for (int step = 0; step < 6000; step++) {
+      if (store.size() > 0 && rand.nextInt(3) == 0) {
+        index.remove(store.last().getTransaction(), store.size() - 1);
+        store.removeLast();
+      } else {
+        Transaction t = new Transaction(names[rand.nextInt(names.length)],
+            names[1 + rand.nextInt(names.length - 1)], rand.nextInt(100));
+        index.add(t, store.size());
+        store.add(new Block(store.size(), t, null, 0));
+      } // if
+    } // for
+    assertTrue(store.size() > 10 * PostingsIndex.CHECKPOINT_INTERVAL, "several checkpoints");
+
+    for (String name : new String[] {"A", "B", "C"}) {
+      long balance = 0;
+      assertEquals(0, index.balanceAt(name, -1, store), name + " before the start");
+      for (int h = 0; h < store.size(); h++) {
+        balance += PostingsIndex.delta(store.get(h).getTransaction(), name);
+        assertEquals(balance, index.balanceAt(name, h, store), name + " at " + h);
+      } // for
+      assertEquals(balance, index.balanceAt(name, store.size() + 5, store), name + " past end");
+    } // for
+  } // testBalanceAt()
+
+  /**
+   * Does the chain answer balances at past heights?
+   */
+  @Test
+  public void testChainBalanceAt() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    chain.append(chain.mine(new Transaction("A", "B", 30)));
+    chain.append(chain.mine(new Transaction("A", "A", 50)));
+    chain.append(chain.mine(new Transaction("B", "A", 5)));
+    assertEquals(0, chain.balanceAt("A", 0), "A at the start");
+    assertEquals(100, chain.balanceAt("A", 1), "A after the deposit");
+    assertEquals(70, chain.balanceAt("A", 3), "A after paying itself");
+    assertEquals(75, chain.balanceAt("A", 4), "A now");
+    assertEquals(chain.balance("B"), chain.balanceAt("B", chain.getSize() - 1), "B now");
+  } // testChainBalanceAt()
+
+  /**
+   * Can we page through a user's history on a chain?
+   */
+  @Test
+  public void testChainHistory() {
+    BlockChain chain = new BlockChain((hash) -> true);
+    chain.append(chain.mine(new Transaction("", "A", 100)));
+    for (int i = 0; i < 25; i++) {
+      chain.append(chain.mine(new Transaction("A", (i % 2 == 0) ? "B" : "A", 1)));
+    } // for
+    assertEquals(26, chain.historySize("A"), "A is in every block but the first");
+    assertEquals(13, chain.historySize("B"), "B is in every other block");
+
+    ArrayList<Integer> heights = new ArrayList<Integer>();
+    int from = 0;
+    int[] page;
+    while ((page = chain.historyHeights("B", from, 5)).length > 0) {
+      assertTrue(page.length <= 5, "page size");
+      for (int h : page) {
+        heights.add(h);
+      } // for
+      from = page[page.length - 1] + 1;
+    } // while
+    assertEquals(13, heights.size(), "all of B's blocks");
+    assertEquals(2, heights.get(0), "B's first block");
+    assertEquals(26, heights.get(12), "B's last block");
+    List<Block> blocks = chain.history("B", 3, 2);
+    assertSame(chain.getBlock(4), blocks.get(0), "first block from height 3");
+    assertSame(chain.getBlock(6), blocks.get(1), "second block from height 3");
+
+    chain.removeLast();
+    chain.removeLast();
+    assertEquals(12, chain.historySize("B"), "after removing");
+  } // testChainHistory()
+} // class TestPostingsIndex
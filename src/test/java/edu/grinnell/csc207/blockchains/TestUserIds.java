@@ -0,0 +1,53 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our UserIds class.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestUserIds {
+  /**
+   * Do names get dense, lasting ids?
+   */
+  @Test
+  public void testIntern() {
+    UserIds ids = new UserIds();
+    for (int i = 0; i < 10_000; i++) {
+      assertEquals(i, ids.intern("user" + i), "new name " + i);
+    } // for
+    assertEquals(10_000, ids.size(), "size");
+    for (int i = 0; i < 10_000; i++) {
+      String name = "user" + i;
+      assertEquals(i, ids.find(name), "finding " + i);
+      assertEquals(i, ids.intern(name), "interning again " + i);
+      assertEquals(name, ids.name(i), "name " + i);
+    } // for
+    assertEquals(-1, ids.find("nobody"), "unknown name");
+    assertEquals(10_000, ids.size(), "finding adds nothing");
+    ids.clear();
+    assertEquals(-1, ids.find("user5"), "cleared");
+    assertEquals(0, ids.intern("user5"), "ids start over");
+  } // testIntern()
+
+  /**
+   * Do names with the same hash code stay apart?
+   */
+  @Test
+  public void testCollisions() {
+    UserIds ids = new UserIds();
+    // "Aa" and "BB" have the same hash code, and so do their concatenations.
+    String[] names = {"AaAa", "AaBB", "BBAa", "BBBB", "Aa", "BB"};
+    for (int i = 0; i < names.length; i++) {
+      assertEquals(i, ids.intern(names[i]), names[i]);
+    } // for
+    for (int i = 0; i < names.length; i++) {
+      assertEquals(i, ids.find(names[i]), names[i]);
+    } // for
+  } // testCollisions()
+} // class TestUserIds
@@ -0,0 +1,82 @@
+package edu.grinnell.csc207.blockchains;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Some simple tests of our VectorHeaderHasher class. The build runs tests with the
+ * jdk.incubator.vector module, so these use the vector code rather than the fallback.
+ *
+ * @author Lily Blanchard
+ * @author AJ Trimble
+ */
+public class TestVectorHeaderHasher {
+  /**
+   * Do we get the vector hasher when the module is present?
+   */
+  @Test
+  public void testFactory() {
+    NonceHasher hasher =
+        HeaderHasher.factory().create(1, new Transaction("", "A", 1), new Hash(new byte[] {}));
+    assertTrue(hasher instanceof VectorHeaderHasher, "vector hasher available");
+  } // testFactory()
+
+  /**
+   * Does the default miner use the vector hasher only when asked or on wide vectors?
+   */
+  @Test
+  public void testDefaultChoice() {
+    assertTrue(Miner.useVector("true"), "asked for");
+    assertFalse(Miner.useVector("false"), "turned off");
+    assertEquals(VectorHeaderHasher.LANES >= 16, Miner.useVector(null), "by lanes");
+  } // testDefaultChoice()
+
+  /**
+   * Does every lane agree with the scalar hasher for every prefix length across a few chunks?
+   */
+  @Test
+  public void testAllLengths() {
+    Random rand = new Random(207);
+    for (int len = 0; len < 200; len++) {
+      byte[] prefix = new byte[len];
+      rand.nextBytes(prefix);
+      HeaderHasher scalar = new HeaderHasher(prefix);
+      VectorHeaderHasher vector = new VectorHeaderHasher(prefix);
+      int lanes = vector.lanes();
+      byte[] out = new byte[lanes * BlockHasher.HASH_BYTES];
+      long first = (len % 2 == 0) ? len : rand.nextLong();
+      long stride = 1 + len % 5;
+      vector.hashBatch(first, stride, out);
+      for (int i = 0; i < lanes; i++) {
+        long nonce = first + i * stride;
+        assertArrayEquals(scalar.hash(nonce).getBytes(),
+            Arrays.copyOfRange(out, i * BlockHasher.HASH_BYTES, (i + 1) * BlockHasher.HASH_BYTES),
+            "prefix of " + len + " bytes, lane " + i);
+      } // for
+    } // for
+  } // testAllLengths()
+
+  /**
+   * Does a miner using vector hashing find the same nonce as the serial search?
+   */
+  @Test
+  public void testMiner() {
+    HashValidator v = (hash) -> (hash.length() >= 2) && (hash.get(0) == 4) && (hash.get(1) == 4);
+    Transaction t = new Transaction("Here", "There", 5);
+    Hash ph = new Hash(new byte[] {1, 2});
+    long expected = new Block(3, t, ph, v).getNonce();
+    for (int threads = 1; threads <= 3; threads++) {
+      Miner miner = new Miner(threads, HeaderHasher.factory());
+      assertEquals(expected, miner.search(3, t, ph, v), "same nonce with " + threads + " threads");
+      miner.shutdown();
+    } // for
+  } // testMiner()
+} // class TestVectorHeaderHasher